@@ -2,15 +2,17 @@ package com.ilichev.vladimir.paginationadaptersample;
 
 import android.app.Activity;
 import android.os.Bundle;
-import android.os.Handler;
-import android.os.Looper;
+import android.os.SystemClock;
+import android.support.annotation.NonNull;
 import android.support.v7.widget.LinearLayoutManager;
 import android.support.v7.widget.RecyclerView;
 
+import com.ilichev.vladimir.paginationadapter.PageRequest;
 import com.ilichev.vladimir.paginationadapter.PaginationAdapter;
 import com.ilichev.vladimir.paginationadapter.PagingConfig;
 import com.ilichev.vladimir.paginationadaptersample.adapter.BooksPagedAdapter;
 import com.ilichev.vladimir.paginationadaptersample.data.Book;
+import com.ilichev.vladimir.paginationadaptersample.data.BookSerializer;
 import com.ilichev.vladimir.paginationadaptersample.data.BooksRepository;
 
 import java.util.ArrayList;
@@ -21,6 +23,7 @@ public class MainActivity extends Activity {
     private BooksRepository booksRepository;
 
     private PaginationAdapter<Book> adapter;
+    private final BookSerializer bookSerializer = new BookSerializer();
 
     @Override
     protected void onCreate(Bundle savedInstanceState) {
@@ -37,23 +40,45 @@ public class MainActivity extends Activity {
                 .build();
 
         adapter = new BooksPagedAdapter(new ArrayList<>(), pagingConfig, this);
-        adapter.setLoadNextPartCallback((offset, count) -> delayedLoad(booksRepository.load(offset, count)));
+        adapter.setLoadNextPartCallback(new PaginationAdapter.LoadNextPartCallback() {
+            @Override
+            public void loadNextPage(int distance, int pageSize) {
+                // Not called, request handle is received below
+            }
+
+            @Override
+            public void loadNextPage(int distance, int pageSize, @NonNull PageRequest request) {
+                delayedLoad(request, booksRepository.load(distance, pageSize));
+            }
+        });
+        boolean restored = adapter.restoreState(savedInstanceState, bookSerializer);
 
         RecyclerView.LayoutManager lm = new LinearLayoutManager(this);
         rv.setLayoutManager(lm);
         rv.setAdapter(adapter);
 
-        delayedLoad(booksRepository.load(0, pagingConfig.getPageSize()));
+        if (!restored) {
+            // Requests the first page through load callback
+            adapter.loadFirstPage();
+        }
+    }
+
+    @Override
+    protected void onSaveInstanceState(Bundle outState) {
+        super.onSaveInstanceState(outState);
+        adapter.saveState(outState, bookSerializer, getCacheDir());
     }
 
-    private void delayedLoad(final List<Book> newBooks) {
-        Handler h = new Handler(Looper.getMainLooper());
-        h.postDelayed(() -> {
+    private void delayedLoad(final PageRequest request, final List<Book> newBooks) {
+        // Simulates network call, results are set right from the background thread
+        new Thread(() -> {
+            SystemClock.sleep(2000);
+            // Results of requests cancelled by reset or detach are dropped
             if (newBooks == null) {
-                adapter.setError();
+                adapter.setError(request);
             } else {
-                adapter.setData(newBooks);
+                adapter.setData(request, newBooks);
             }
-            }, 2000);
+        }).start();
     }
 }
@@ -0,0 +1,37 @@
+package com.ilichev.vladimir.paginationadaptersample.data;
+
+import android.support.annotation.NonNull;
+
+import com.ilichev.vladimir.paginationadapter.PageSerializer;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+public class BookSerializer implements PageSerializer<Book> {
+
+    @Override
+    public void write(@NonNull List<Book> items, @NonNull DataOutput out) throws IOException {
+        out.writeInt(items.size());
+        for (Book book : items) {
+            out.writeUTF(book.title);
+            out.writeUTF(book.author);
+        }
+    }
+
+    @NonNull
+    @Override
+    public List<Book> read(@NonNull DataInput in) throws IOException {
+        int size = in.readInt();
+        List<Book> books = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            Book book = new Book();
+            book.title = in.readUTF();
+            book.author = in.readUTF();
+            books.add(book);
+        }
+        return books;
+    }
+}
@@ -0,0 +1,64 @@
+package com.ilichev.vladimir.paginationadapter;
+
+/**
+ * Policy that requests next page early enough for it to arrive before user reaches the end of the list.
+ * It tracks scroll velocity (items per second) and page load latency with exponential moving averages,
+ * threshold is the number of items user scrolls through while the page is loading.
+ * Slow reading gives small threshold, fling over slow network gives big one.
+ */
+public class AdaptivePrefetchPolicy implements PrefetchPolicy {
+
+    // Weight of the newest sample in moving averages
+    private static final float SMOOTHING = 0.3f;
+    // Scroll events separated by longer pause are not treated as one gesture
+    private static final long MAX_SAMPLE_GAP_MILLIS = 500;
+
+    private final int minThreshold;
+    private final int maxThreshold;
+
+    private float itemsPerMillis;
+    private float latencyMillis;
+
+    private int lastPosition = -1;
+    private long lastUptimeMillis;
+
+    /**
+     * @param minThreshold Threshold used while user does not scroll, in rows for grids.
+     * @param maxThreshold Upper bound for threshold, usually a few pages, in rows for grids.
+     * @param initialLatencyMillis Expected page load latency before the first page is loaded.
+     */
+    public AdaptivePrefetchPolicy(int minThreshold, int maxThreshold, long initialLatencyMillis) {
+        if (minThreshold < 0 || maxThreshold < minThreshold) {
+            throw new IllegalArgumentException("Thresholds must satisfy 0 <= min <= max");
+        }
+        this.minThreshold = minThreshold;
+        this.maxThreshold = maxThreshold;
+        this.latencyMillis = initialLatencyMillis;
+    }
+
+    @Override
+    public void onScrolled(int lastVisiblePosition, long uptimeMillis) {
+        long elapsed = uptimeMillis - lastUptimeMillis;
+        if (lastPosition < 0 || elapsed > MAX_SAMPLE_GAP_MILLIS) {
+            itemsPerMillis = 0;
+        } else if (elapsed > 0) {
+            // Only scrolling towards the end brings the next request closer
+            float sample = Math.max(0, lastVisiblePosition - lastPosition) / (float) elapsed;
+            itemsPerMillis += SMOOTHING * (sample - itemsPerMillis);
+        }
+        lastPosition = lastVisiblePosition;
+        lastUptimeMillis = uptimeMillis;
+    }
+
+    @Override
+    public void onPageLoaded(long latencyMillis) {
+        this.latencyMillis += SMOOTHING * (latencyMillis - this.latencyMillis);
+    }
+
+    @Override
+    public int getLoadThreshold(int spanCount) {
+        // Velocity is measured in items, so only bounds given in rows depend on span count
+        int threshold = (int) Math.ceil(itemsPerMillis * latencyMillis);
+        return Math.max(minThreshold * spanCount, Math.min(maxThreshold * spanCount, threshold));
+    }
+}
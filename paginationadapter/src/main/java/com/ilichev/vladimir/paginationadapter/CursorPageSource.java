@@ -0,0 +1,231 @@
+package com.ilichev.vladimir.paginationadapter;
+
+import android.database.Cursor;
+import android.database.sqlite.SQLiteDatabase;
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+import android.support.annotation.WorkerThread;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.Executor;
+
+/**
+ * {@link PageSource} over a table of local SQLite database. Pages are selected by key (keyset pagination):
+ * page starts after the last key of the previous page, so the database seeks in the index instead of skipping
+ * {@code OFFSET} rows. Every page is a separate query, so its cursor window holds only rows of the page,
+ * and rows are mapped to items one by one as adapter requests them.
+ * Together with {@link PaginationAdapter#setTotalCount(int)} and {@link PagingConfig.Builder#setWindowSize(int)}
+ * a table of any size scrolls with constant heap.
+ * <p>
+ * Key column must be an {@code INTEGER} column with unique values, for example {@code _id}, rows are ordered by it.
+ * Source remembers keys of page borders it has passed. When a page far from known borders is requested,
+ * for example after jump in total count mode, its first key is found by walking the index from the nearest known border.
+ * After rows are inserted or deleted call {@link #invalidate()} before {@link PaginationAdapter#refresh()}.
+ * @param <E> Item class.
+ */
+public final class CursorPageSource<E> implements PageSource<E> {
+
+    // Known page borders are bounded, so long scrolling does not grow the heap
+    private static final int MAX_BORDERS = 1024;
+
+    /**
+     * Maps row to item.
+     * @param <E> Item class.
+     */
+    public interface RowMapper<E> {
+
+        /**
+         * Called in background.
+         * @param cursor Cursor moved to the row, it must not be kept or moved.
+         * @return Item of the row.
+         */
+        @NonNull
+        E map(@NonNull Cursor cursor);
+    }
+
+    private final SQLiteDatabase database;
+    private final String table;
+    private final String keyColumn;
+    private final String projection;
+    private final RowMapper<E> mapper;
+    private final Executor executor;
+
+    // Key of the last row before the page, by page distance. Guarded by itself.
+    private final TreeMap<Integer, Long> borders = new TreeMap<>();
+
+    /**
+     * @param database Database to read from.
+     * @param table Table (or view) name.
+     * @param keyColumn Unique {@code INTEGER} column rows are ordered by.
+     * @param columns Columns to read, key column is added when it is missing. Null reads all columns.
+     * @param mapper Mapper of rows to items.
+     */
+    public CursorPageSource(@NonNull SQLiteDatabase database, @NonNull String table, @NonNull String keyColumn,
+                            @Nullable String[] columns, @NonNull RowMapper<E> mapper) {
+        this(database, table, keyColumn, columns, mapper, PagingExecutors.background());
+    }
+
+    CursorPageSource(@NonNull SQLiteDatabase database, @NonNull String table, @NonNull String keyColumn,
+                     @Nullable String[] columns, @NonNull RowMapper<E> mapper, @NonNull Executor executor) {
+        this.database = database;
+        this.table = table;
+        this.keyColumn = keyColumn;
+        this.projection = projection(keyColumn, columns);
+        this.mapper = mapper;
+        this.executor = executor;
+    }
+
+    /**
+     * @return Number of rows, for example for {@link PaginationAdapter#setTotalCount(int)}.
+     */
+    @WorkerThread
+    public int getCount() {
+        Cursor cursor = database.rawQuery("SELECT COUNT(*) FROM " + table, null);
+        try {
+            return cursor.moveToFirst() ? cursor.getInt(0) : 0;
+        } finally {
+            cursor.close();
+        }
+    }
+
+    /**
+     * Forgets page borders. Must be called when rows are inserted or deleted, because borders move then.
+     */
+    public void invalidate() {
+        synchronized (borders) {
+            borders.clear();
+        }
+    }
+
+    @Override
+    public void subscribe(@NonNull PageRequest request, @NonNull Subscriber<? super E> subscriber) {
+        new CursorSubscription(request, subscriber).start();
+    }
+
+    private static String projection(String keyColumn, String[] columns) {
+        if (columns == null) {
+            return "*";
+        }
+
+        StringBuilder sb = new StringBuilder();
+        boolean hasKey = false;
+        for (String column : columns) {
+            if (sb.length() > 0) {
+                sb.append(", ");
+            }
+            sb.append(column);
+            hasKey |= column.equals(keyColumn);
+        }
+        if (!hasKey) {
+            if (sb.length() > 0) {
+                sb.append(", ");
+            }
+            sb.append(keyColumn);
+        }
+        return sb.toString();
+    }
+
+    private String afterKey(@Nullable Long key) {
+        return key == null ? "" : " WHERE " + keyColumn + " > " + key;
+    }
+
+    /**
+     * Finds key of the last row before the page.
+     * @return Key or null if there is no such row.
+     */
+    @Nullable
+    private Long findBorder(int distance) {
+        Map.Entry<Integer, Long> nearest;
+        synchronized (borders) {
+            Long key = borders.get(distance);
+            if (key != null) {
+                return key;
+            }
+            nearest = borders.floorEntry(distance);
+        }
+
+        int from = nearest == null ? 0 : nearest.getKey();
+        Long fromKey = nearest == null ? null : nearest.getValue();
+        // Only the index is walked, rows are not read
+        Cursor cursor = database.rawQuery("SELECT " + keyColumn + " FROM " + table + afterKey(fromKey)
+                + " ORDER BY " + keyColumn + " LIMIT 1 OFFSET " + (distance - from - 1), null);
+        try {
+            if (!cursor.moveToFirst()) {
+                return null;
+            }
+            long key = cursor.getLong(0);
+            remember(distance, key);
+            return key;
+        } finally {
+            cursor.close();
+        }
+    }
+
+    private void remember(int distance, long key) {
+        synchronized (borders) {
+            borders.put(distance, key);
+            if (borders.size() > MAX_BORDERS) {
+                // Drop the border farthest from current page
+                int first = borders.firstKey();
+                int last = borders.lastKey();
+                borders.remove(distance - first > last - distance ? first : last);
+            }
+        }
+    }
+
+    private final class CursorSubscription extends LocalPageSubscription<E> {
+
+        private final PageRequest request;
+        private Cursor cursor;
+        private int keyIndex;
+        private int read;
+        private long lastKey;
+
+        CursorSubscription(PageRequest request, Subscriber<? super E> subscriber) {
+            super(subscriber, executor);
+            this.request = request;
+        }
+
+        @Override
+        void open() {
+            int distance = request.getDistance();
+            Long border = null;
+            if (distance > 0) {
+                border = findBorder(distance);
+                if (border == null) {
+                    // Page is after the last row
+                    return;
+                }
+            }
+            cursor = database.rawQuery("SELECT " + projection + " FROM " + table + afterKey(border)
+                    + " ORDER BY " + keyColumn + " LIMIT " + request.getPageSize(), null);
+            keyIndex = cursor.getColumnIndexOrThrow(keyColumn);
+        }
+
+        @Nullable
+        @Override
+        E next() {
+            if (cursor == null) {
+                return null;
+            }
+            if (!cursor.moveToNext()) {
+                if (read > 0) {
+                    remember(request.getDistance() + read, lastKey);
+                }
+                return null;
+            }
+            read++;
+            lastKey = cursor.getLong(keyIndex);
+            return mapper.map(cursor);
+        }
+
+        @Override
+        void close() {
+            if (cursor != null) {
+                cursor.close();
+                cursor = null;
+            }
+        }
+    }
+}
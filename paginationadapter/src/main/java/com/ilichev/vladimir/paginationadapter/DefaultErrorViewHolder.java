@@ -13,7 +13,11 @@ class DefaultErrorViewHolder extends StateHolder {
         this.delegateImpl = delegateImpl;
 
         retryButton = itemView.findViewById(R.id.retry_page_load_button);
-        retryButton.setOnClickListener(v -> delegateImpl.retry());
+        retryButton.setOnClickListener(v -> this.delegateImpl.retry());
+    }
+
+    void setRetryDelegate(RetryDelegate delegateImpl) {
+        this.delegateImpl = delegateImpl;
     }
 
     @Override
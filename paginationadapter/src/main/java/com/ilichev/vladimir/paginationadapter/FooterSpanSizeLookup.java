@@ -0,0 +1,40 @@
+package com.ilichev.vladimir.paginationadapter;
+
+import android.support.v7.widget.GridLayoutManager;
+
+/**
+ * Makes footer of {@link PaginationAdapter} span the full row of {@link GridLayoutManager}.
+ * Item positions are delegated to span lookup that was set by client.
+ */
+final class FooterSpanSizeLookup extends GridLayoutManager.SpanSizeLookup {
+
+    private final GridLayoutManager manager;
+    private final GridLayoutManager.SpanSizeLookup delegate;
+    private final FooterPositionProvider footerPositionProvider;
+
+    FooterSpanSizeLookup(GridLayoutManager manager, GridLayoutManager.SpanSizeLookup delegate,
+                         FooterPositionProvider footerPositionProvider) {
+        this.manager = manager;
+        this.delegate = delegate;
+        this.footerPositionProvider = footerPositionProvider;
+    }
+
+    /**
+     * @return Span lookup of client, it is set back when adapter is detached.
+     */
+    GridLayoutManager.SpanSizeLookup getDelegate() {
+        return delegate;
+    }
+
+    @Override
+    public int getSpanSize(int position) {
+        if (footerPositionProvider.isFooter(position)) {
+            return manager.getSpanCount();
+        }
+        return delegate.getSpanSize(position);
+    }
+
+    interface FooterPositionProvider {
+        boolean isFooter(int position);
+    }
+}
@@ -0,0 +1,71 @@
+package com.ilichev.vladimir.paginationadapter;
+
+import android.support.annotation.NonNull;
+
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Lock-free queue of results delivered to adapter from any thread. Queue is drained on the main thread
+ * once per frame, before the frame is laid out, and all queued actions run in one {@link NotificationBatch},
+ * so several pages that arrive within a frame cost one layout pass.
+ * Actions run in order they were posted.
+ */
+final class FrameQueue {
+
+    private final ConcurrentLinkedQueue<Runnable> actions = new ConcurrentLinkedQueue<>();
+    private final AtomicBoolean scheduled = new AtomicBoolean();
+    private final NotificationBatch batch;
+    private final Executor frameExecutor;
+    private final Runnable drain = this::drain;
+    // Action that is run by drain may drain the queue again, nested drain must not run later actions before it
+    private boolean draining;
+
+    /**
+     * @param frameExecutor Runs drain on the main thread at the next frame, see {@link PagingExecutors#postFrame(Runnable)}.
+     */
+    FrameQueue(@NonNull NotificationBatch batch, @NonNull Executor frameExecutor) {
+        this.batch = batch;
+        this.frameExecutor = frameExecutor;
+    }
+
+    /**
+     * Queues action to run on the main thread at the next frame. Can be called from any thread.
+     */
+    void post(@NonNull Runnable action) {
+        actions.offer(action);
+        if (scheduled.compareAndSet(false, true)) {
+            frameExecutor.execute(drain);
+        }
+    }
+
+    /**
+     * Runs all queued actions as one batch. Must be called on the main thread.
+     */
+    void drain() {
+        if (draining) {
+            return;
+        }
+        scheduled.set(false);
+        if (actions.isEmpty()) {
+            return;
+        }
+
+        draining = true;
+        batch.begin();
+        try {
+            Runnable action;
+            while ((action = actions.poll()) != null) {
+                action.run();
+            }
+        } finally {
+            draining = false;
+            batch.commit();
+            // Action has thrown, the rest waits for the next frame
+            if (!actions.isEmpty() && scheduled.compareAndSet(false, true)) {
+                frameExecutor.execute(drain);
+            }
+        }
+    }
+}
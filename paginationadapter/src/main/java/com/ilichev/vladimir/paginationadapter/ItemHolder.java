@@ -1,5 +1,6 @@
 package com.ilichev.vladimir.paginationadapter;
 
+import android.support.annotation.Nullable;
 import android.support.v7.widget.RecyclerView;
 import android.view.View;
 
@@ -12,7 +13,10 @@ public abstract class ItemHolder<E> extends RecyclerView.ViewHolder {
         super(itemView);
     }
 
-    void setItem(E item) {
+    /**
+     * @param prepared Result of {@link ItemPreparer} for item, used by {@link PreparedItemHolder}.
+     */
+    void setItem(E item, @Nullable Object prepared) {
         this.item = item;
         render();
     }
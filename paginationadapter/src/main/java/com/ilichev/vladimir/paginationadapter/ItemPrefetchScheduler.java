@@ -0,0 +1,195 @@
+package com.ilichev.vladimir.paginationadapter;
+
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+import android.support.v7.widget.RecyclerView;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Executor;
+
+/**
+ * Hands items ahead of visible range to {@link ItemPrefetcher}. Follows the same visible range updates
+ * as loading of pages, looks ahead in the direction of the last scroll and keeps number of items
+ * in flight within budget. Accessed on the main thread only.
+ * @param <E> Item class.
+ */
+final class ItemPrefetchScheduler<E> {
+
+    private final int distance;
+    private final int maxConcurrent;
+    private final PagingExecutors.ThreadCheck threadCheck;
+    private final Executor mainThreadExecutor;
+
+    private ItemPrefetcher<E> prefetcher;
+    // Adapter list as of the last update, items are handed from it when budget is released
+    private List<E> data;
+    private final List<Batch> active = new ArrayList<>();
+    // Positions that were handed to prefetcher
+    private final BitSet handed = new BitSet();
+    private int inFlight;
+
+    private int firstVisiblePosition = RecyclerView.NO_POSITION;
+    private int lastVisiblePosition = RecyclerView.NO_POSITION;
+    private boolean forward = true;
+
+    ItemPrefetchScheduler(int distance, int maxConcurrent, @NonNull PagingExecutors.ThreadCheck threadCheck,
+                          @NonNull Executor mainThreadExecutor) {
+        this.distance = distance;
+        this.maxConcurrent = maxConcurrent;
+        this.threadCheck = threadCheck;
+        this.mainThreadExecutor = mainThreadExecutor;
+    }
+
+    void setPrefetcher(@Nullable ItemPrefetcher<E> prefetcher) {
+        cancelAll();
+        handed.clear();
+        this.prefetcher = prefetcher;
+    }
+
+    /**
+     * Cancels prefetches that are out of range and hands items ahead of new visible range.
+     */
+    void onVisibleRangeChanged(@NonNull List<E> data, int first, int last) {
+        if (lastVisiblePosition != RecyclerView.NO_POSITION) {
+            if (last > lastVisiblePosition) {
+                forward = true;
+            } else if (first < firstVisiblePosition) {
+                forward = false;
+            }
+        }
+        firstVisiblePosition = first;
+        lastVisiblePosition = last;
+
+        int from = forward ? first : first - distance;
+        int to = forward ? last + distance : last;
+        for (int i = active.size() - 1; i >= 0; i--) {
+            Batch batch = active.get(i);
+            if (batch.last < from || batch.first > to) {
+                cancel(i);
+            }
+        }
+        schedule(data);
+    }
+
+    /**
+     * Hands loaded items within prefetch distance that were not handed yet, as long as budget allows.
+     */
+    void schedule(@NonNull List<E> data) {
+        this.data = data;
+        int available = maxConcurrent - inFlight;
+        if (prefetcher == null || available <= 0 || lastVisiblePosition == RecyclerView.NO_POSITION) {
+            return;
+        }
+
+        List<E> items = null;
+        int[] positions = null;
+        int nearest = 0;
+        for (int i = 1; i <= distance; i++) {
+            int position = forward ? lastVisiblePosition + i : firstVisiblePosition - i;
+            if (position < 0 || position >= data.size()) {
+                break;
+            }
+            E item = data.get(position);
+            if (item == null || handed.get(position)) {
+                // Placeholder is handed when its page arrives
+                continue;
+            }
+            if (items == null) {
+                items = new ArrayList<>(available);
+                positions = new int[available];
+                nearest = i;
+            }
+            positions[items.size()] = position;
+            items.add(item);
+            handed.set(position);
+            if (items.size() == available) {
+                break;
+            }
+        }
+        if (items == null) {
+            return;
+        }
+
+        final Batch batch = new Batch(positions, items.size());
+        batch.request = new PrefetchRequest(() -> release(batch));
+        active.add(batch);
+        inFlight += batch.count;
+        prefetcher.onItemsApproaching(Collections.unmodifiableList(items), nearest, batch.request);
+    }
+
+    /**
+     * Items from given position changed or moved, their prefetches are cancelled and they are handed again.
+     * @param from First changed position.
+     * @param to Position after the last changed one.
+     */
+    void invalidate(int from, int to) {
+        for (int i = active.size() - 1; i >= 0; i--) {
+            Batch batch = active.get(i);
+            if (batch.last >= from && batch.first < to) {
+                cancel(i);
+            }
+        }
+        handed.clear(from, to);
+    }
+
+    void cancelAll() {
+        for (int i = active.size() - 1; i >= 0; i--) {
+            cancel(i);
+        }
+    }
+
+    void reset() {
+        cancelAll();
+        data = null;
+        handed.clear();
+        firstVisiblePosition = RecyclerView.NO_POSITION;
+        lastVisiblePosition = RecyclerView.NO_POSITION;
+        forward = true;
+    }
+
+    private void cancel(int index) {
+        Batch batch = active.remove(index);
+        inFlight -= batch.count;
+        for (int i = 0; i < batch.count; i++) {
+            // Items are handed again when they approach next time
+            handed.clear(batch.positions[i]);
+        }
+        batch.request.cancel();
+    }
+
+    private void release(final Batch batch) {
+        if (!threadCheck.isMainThread()) {
+            mainThreadExecutor.execute(() -> release(batch));
+            return;
+        }
+        if (active.remove(batch)) {
+            inFlight -= batch.count;
+            schedule(data);
+        }
+    }
+
+    private static final class Batch {
+
+        final int[] positions;
+        final int count;
+        final int first;
+        final int last;
+        PrefetchRequest request;
+
+        Batch(int[] positions, int count) {
+            this.positions = positions;
+            this.count = count;
+            int min = positions[0];
+            int max = positions[0];
+            for (int i = 1; i < count; i++) {
+                min = Math.min(min, positions[i]);
+                max = Math.max(max, positions[i]);
+            }
+            this.first = min;
+            this.last = max;
+        }
+    }
+}
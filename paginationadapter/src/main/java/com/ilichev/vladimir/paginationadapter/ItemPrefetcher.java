@@ -0,0 +1,26 @@
+package com.ilichev.vladimir.paginationadapter;
+
+import android.support.annotation.NonNull;
+
+import java.util.List;
+
+/**
+ * Warms resources of items before they are bound (decodes thumbnails, loads nested data),
+ * see {@link PaginationAdapter#setItemPrefetcher(ItemPrefetcher)}.
+ * Adapter looks ahead of visible items in the direction of scrolling, the range is set with
+ * {@link PagingConfig.Builder#setItemPrefetchDistance(int)}, and hands items that are loaded and not prefetched yet,
+ * nearest first. Number of items prefetched at once is limited by
+ * {@link PagingConfig.Builder#setMaxConcurrentItemPrefetches(int)}.
+ * @param <E> Item class.
+ */
+public interface ItemPrefetcher<E> {
+
+    /**
+     * Called on the main thread, work should be started asynchronously. Call {@link PrefetchRequest#done()}
+     * when resources are ready or failed, so the next items can be prefetched.
+     * @param items Items approaching visible range, nearest first.
+     * @param distanceFromViewport Number of positions between visible range and the first of items, starting from 1.
+     * @param request Handle of the prefetch, it is cancelled when items scroll out of range before they become visible.
+     */
+    void onItemsApproaching(@NonNull List<E> items, int distanceFromViewport, @NonNull PrefetchRequest request);
+}
@@ -0,0 +1,24 @@
+package com.ilichev.vladimir.paginationadapter;
+
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+
+/**
+ * Prepares expensive parts of item rendering (text layout, formatting, parsing) off the main thread,
+ * see {@link PaginationAdapter#setItemPreparer(ItemPreparer)}. Prepared result is given to
+ * {@link PreparedItemHolder#render(Object)} together with item.
+ * Preparer is called from worker threads and, for items bound before their preparation is done,
+ * from the main thread, so it must not change shared state.
+ * @param <E> Item class.
+ * @param <P> Class of prepared data.
+ */
+public interface ItemPreparer<E, P> {
+
+    /**
+     * @param item Item of arrived page.
+     * @return Prepared data for item. It is kept for this item instance, an equal item given by
+     * {@link PaginationAdapter#update(Object, int)} is prepared again.
+     */
+    @Nullable
+    P prepare(@NonNull E item);
+}
@@ -0,0 +1,51 @@
+package com.ilichev.vladimir.paginationadapter;
+
+import android.support.annotation.NonNull;
+import android.view.ViewGroup;
+
+/**
+ * One kind of item layout in {@link PaginationAdapter}, see {@link PaginationAdapter#registerItemViewType(ItemViewType)}.
+ * View type id is allocated per key of the type, see {@link #getViewTypeKey()}, so adapters that register
+ * types with the same key can share {@link android.support.v7.widget.RecyclerView.RecycledViewPool}
+ * and reuse holders of each other. It means types with the same key must always create the same kind of holder.
+ * @param <E> Data class that will be displayed in {@link ItemHolder}
+ */
+public interface ItemViewType<E> {
+
+    /**
+     * Default number of holders of one type kept in {@link android.support.v7.widget.RecyclerView.RecycledViewPool}.
+     */
+    int DEFAULT_MAX_RECYCLED_VIEWS = 5;
+
+    /**
+     * @param item Item from the list.
+     * @return True if item is displayed with holder of this type.
+     */
+    boolean isForItem(@NonNull E item);
+
+    /**
+     * @param parent Parent view for item. See {@link android.support.v7.widget.RecyclerView.Adapter#onCreateViewHolder(ViewGroup, int)}
+     * @return Holder to display item of this type.
+     */
+    @NonNull
+    ItemHolder<E> createViewHolder(@NonNull ViewGroup parent);
+
+    /**
+     * Class of the type is its key by default. Types that create different holders depending on
+     * their parameters, for example layout resource, must include these parameters into the key,
+     * for example {@code Arrays.asList(getClass(), layoutRes)}.
+     * @return Stable key with proper equals and hashCode, the same for the same kind of holder.
+     */
+    @NonNull
+    default Object getViewTypeKey() {
+        return getClass();
+    }
+
+    /**
+     * @return How many unused holders of this type pool keeps. Types that fill the screen with many
+     * items need more than rare ones.
+     */
+    default int getMaxRecycledViews() {
+        return DEFAULT_MAX_RECYCLED_VIEWS;
+    }
+}
@@ -0,0 +1,146 @@
+package com.ilichev.vladimir.paginationadapter;
+
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+
+import java.io.IOException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Subscription to a page of local storage. Items are read and decoded one by one in background, only as many
+ * as subscriber requested and one ahead to notice the end of the page, so the page is never copied to a list
+ * on the source side.
+ * Reads of one subscription never run concurrently, storage is released when the page ends, fails or is cancelled.
+ * @param <E> Item class.
+ */
+abstract class LocalPageSubscription<E> implements PageSource.Subscription, Runnable {
+
+    private final PageSource.Subscriber<? super E> subscriber;
+    private final Executor executor;
+    private final AtomicLong demand = new AtomicLong();
+    // Number of drain requests, drain runs while it is not zero
+    private final AtomicInteger pendingDrains = new AtomicInteger();
+    private volatile boolean cancelled;
+    private volatile boolean invalidRequest;
+
+    // Accessed by drain only
+    private boolean opened;
+    private boolean done;
+    // Item read ahead, so the end of the page is noticed without extra demand
+    private E nextItem;
+
+    LocalPageSubscription(@NonNull PageSource.Subscriber<? super E> subscriber, @NonNull Executor executor) {
+        this.subscriber = subscriber;
+        this.executor = executor;
+    }
+
+    /**
+     * Opens storage, called in background before the first item is read.
+     */
+    abstract void open() throws IOException;
+
+    /**
+     * @return Next item of the page or null if page has no more items.
+     */
+    @Nullable
+    abstract E next() throws IOException;
+
+    /**
+     * Releases storage. Called once, even if {@link #open()} has failed or was not called.
+     */
+    abstract void close();
+
+    void start() {
+        subscriber.onSubscribe(this);
+    }
+
+    @Override
+    public void request(long n) {
+        if (n <= 0) {
+            invalidRequest = true;
+        } else {
+            long current;
+            long next;
+            do {
+                current = demand.get();
+                next = current + n < 0 ? Long.MAX_VALUE : current + n;
+            } while (!demand.compareAndSet(current, next));
+        }
+        schedule();
+    }
+
+    @Override
+    public void cancel() {
+        cancelled = true;
+        schedule();
+    }
+
+    @Override
+    public void run() {
+        int missed = 1;
+        do {
+            drain();
+            missed = pendingDrains.addAndGet(-missed);
+        } while (missed != 0);
+    }
+
+    private void schedule() {
+        if (pendingDrains.getAndIncrement() == 0) {
+            executor.execute(this);
+        }
+    }
+
+    private void drain() {
+        if (done) {
+            return;
+        }
+        if (cancelled) {
+            finish();
+            return;
+        }
+        if (invalidRequest) {
+            finish();
+            subscriber.onError(new IllegalArgumentException("Demand must be positive"));
+            return;
+        }
+
+        try {
+            if (!opened) {
+                opened = true;
+                open();
+            }
+            while (!cancelled) {
+                if (nextItem == null) {
+                    nextItem = next();
+                    if (nextItem == null) {
+                        finish();
+                        subscriber.onComplete();
+                        return;
+                    }
+                }
+                if (demand.get() == 0) {
+                    break;
+                }
+                E item = nextItem;
+                nextItem = null;
+                demand.decrementAndGet();
+                subscriber.onNext(item);
+            }
+        } catch (IOException | RuntimeException e) {
+            finish();
+            subscriber.onError(e);
+            return;
+        }
+        if (cancelled) {
+            finish();
+        }
+    }
+
+    private void finish() {
+        done = true;
+        nextItem = null;
+        close();
+    }
+}
@@ -0,0 +1,177 @@
+package com.ilichev.vladimir.paginationadapter;
+
+import android.support.annotation.NonNull;
+import android.support.v7.util.ListUpdateCallback;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Collects adapter notifications while batch is open and dispatches merged set on commit.
+ * Operation is merged with the previous one when both describe adjacent ranges of the same kind,
+ * changes of just inserted items are dropped and removals of just inserted items shrink the insertion.
+ * Outside of batch notifications are passed through as is.
+ */
+final class NotificationBatch implements ListUpdateCallback {
+
+    private static final int INSERT = 0;
+    private static final int REMOVE = 1;
+    private static final int CHANGE = 2;
+    private static final int MOVE = 3;
+
+    private final ListUpdateCallback target;
+    private final List<Operation> operations = new ArrayList<>();
+    private int depth;
+
+    NotificationBatch(@NonNull ListUpdateCallback target) {
+        this.target = target;
+    }
+
+    void begin() {
+        depth++;
+    }
+
+    /**
+     * Closes batch. When the outermost batch is closed all collected notifications are dispatched.
+     * @throws IllegalStateException If there is no open batch.
+     */
+    void commit() {
+        if (depth == 0) {
+            throw new IllegalStateException("There is no batch to commit");
+        }
+        if (--depth > 0) {
+            return;
+        }
+
+        for (int i = 0; i < operations.size(); i++) {
+            Operation op = operations.get(i);
+            switch (op.type) {
+                case INSERT:
+                    target.onInserted(op.position, op.count);
+                    break;
+                case REMOVE:
+                    target.onRemoved(op.position, op.count);
+                    break;
+                case CHANGE:
+                    target.onChanged(op.position, op.count, op.payload);
+                    break;
+                case MOVE:
+                    target.onMoved(op.position, op.count);
+                    break;
+            }
+        }
+        operations.clear();
+    }
+
+    boolean isOpen() {
+        return depth > 0;
+    }
+
+    @Override
+    public void onInserted(int position, int count) {
+        if (count <= 0) {
+            return;
+        }
+        if (depth == 0) {
+            target.onInserted(position, count);
+            return;
+        }
+
+        Operation last = last();
+        if (last != null && last.type == INSERT
+                && position >= last.position && position <= last.position + last.count) {
+            last.count += count;
+            return;
+        }
+        operations.add(new Operation(INSERT, position, count, null));
+    }
+
+    @Override
+    public void onRemoved(int position, int count) {
+        if (count <= 0) {
+            return;
+        }
+        if (depth == 0) {
+            target.onRemoved(position, count);
+            return;
+        }
+
+        Operation last = last();
+        if (last != null && last.type == REMOVE) {
+            if (position == last.position) {
+                last.count += count;
+                return;
+            }
+            if (position + count == last.position) {
+                last.position = position;
+                last.count += count;
+                return;
+            }
+        }
+        if (last != null && last.type == INSERT
+                && position >= last.position && position + count <= last.position + last.count) {
+            // Items were inserted and removed inside the same batch
+            last.count -= count;
+            if (last.count == 0) {
+                operations.remove(operations.size() - 1);
+            }
+            return;
+        }
+        operations.add(new Operation(REMOVE, position, count, null));
+    }
+
+    @Override
+    public void onMoved(int fromPosition, int toPosition) {
+        if (depth == 0) {
+            target.onMoved(fromPosition, toPosition);
+            return;
+        }
+        operations.add(new Operation(MOVE, fromPosition, toPosition, null));
+    }
+
+    @Override
+    public void onChanged(int position, int count, Object payload) {
+        if (count <= 0) {
+            return;
+        }
+        if (depth == 0) {
+            target.onChanged(position, count, payload);
+            return;
+        }
+
+        Operation last = last();
+        if (last != null && last.type == INSERT
+                && position >= last.position && position + count <= last.position + last.count) {
+            // Inserted items are bound anyway
+            return;
+        }
+        if (last != null && last.type == CHANGE && last.payload == payload
+                && position <= last.position + last.count && position + count >= last.position) {
+            int end = Math.max(last.position + last.count, position + count);
+            last.position = Math.min(last.position, position);
+            last.count = end - last.position;
+            return;
+        }
+        operations.add(new Operation(CHANGE, position, count, payload));
+    }
+
+    private Operation last() {
+        return operations.isEmpty() ? null : operations.get(operations.size() - 1);
+    }
+
+    private static final class Operation {
+
+        private final int type;
+        private int position;
+        // Target position for moves
+        private int count;
+        private final Object payload;
+
+        Operation(int type, int position, int count, Object payload) {
+            this.type = type;
+            this.position = position;
+            this.count = count;
+            this.payload = payload;
+        }
+    }
+}
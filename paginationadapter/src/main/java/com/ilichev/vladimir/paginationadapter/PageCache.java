@@ -0,0 +1,284 @@
+package com.ilichev.vladimir.paginationadapter;
+
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+import android.support.annotation.WorkerThread;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executor;
+
+/**
+ * Two-tier cache of loaded pages that sits in front of load callbacks of {@link PaginationAdapter}.
+ * Pages are keyed by source id, distance (offset) and page size. The first tier is in-memory LRU
+ * with limited number of pages, pages from it are served synchronously. The second optional tier keeps
+ * pages in files, they are read in background with {@link PageSerializer}.
+ * Keep cache instance longer than adapter (for example in retained or application scope),
+ * so new adapter shows the first screen from memory after rotation or back navigation.
+ * Cached page younger than fresh period is used as is, older page is shown and requested again
+ * in background (stale-while-revalidate), page older than max stale period is not used.
+ * @param <E> Item class.
+ */
+public final class PageCache<E> {
+
+    private static final int DISK_FORMAT_VERSION = 1;
+    private static final String FILE_EXTENSION = ".page";
+    private static final String TEMP_EXTENSION = ".tmp";
+
+    private final String sourceId;
+    private final long freshMillis;
+    private final long maxStaleMillis;
+    private final File diskDirectory;
+    private final int maxDiskPages;
+    private final PageSerializer<E> serializer;
+    private final Executor diskExecutor = PagingExecutors.background();
+
+    private final Map<String, CachedPage<E>> memory;
+
+    private PageCache(Builder<E> builder) {
+        sourceId = builder.sourceId;
+        freshMillis = builder.freshMillis;
+        maxStaleMillis = builder.maxStaleMillis;
+        diskDirectory = builder.diskDirectory;
+        maxDiskPages = builder.maxDiskPages;
+        serializer = builder.serializer;
+
+        final int memoryPages = builder.memoryPages;
+        memory = new LinkedHashMap<String, CachedPage<E>>(memoryPages, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, CachedPage<E>> eldest) {
+                return size() > memoryPages;
+            }
+        };
+    }
+
+    /**
+     * Removes all pages of this source from memory and disk.
+     */
+    public void clear() {
+        synchronized (memory) {
+            memory.clear();
+        }
+        if (diskDirectory != null) {
+            diskExecutor.execute(() -> {
+                for (File file : diskFiles()) {
+                    //noinspection ResultOfMethodCallIgnored
+                    file.delete();
+                }
+            });
+        }
+    }
+
+    @Nullable
+    CachedPage<E> getFromMemory(int distance, int pageSize) {
+        synchronized (memory) {
+            CachedPage<E> entry = memory.get(key(distance, pageSize));
+            return entry != null && isUsable(entry) ? entry : null;
+        }
+    }
+
+    boolean hasDisk() {
+        return diskDirectory != null;
+    }
+
+    /**
+     * Reads page from disk tier and puts it to memory tier.
+     * @return Cached page or null if there is no usable page on disk.
+     */
+    @Nullable
+    @WorkerThread
+    CachedPage<E> readFromDisk(int distance, int pageSize) {
+        File file = new File(diskDirectory, key(distance, pageSize) + FILE_EXTENSION);
+        if (!file.exists()) {
+            return null;
+        }
+
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+            if (in.readInt() != DISK_FORMAT_VERSION) {
+                return null;
+            }
+            long time = in.readLong();
+            CachedPage<E> entry = new CachedPage<>(Collections.unmodifiableList(serializer.read(in)), time);
+            if (!isUsable(entry)) {
+                return null;
+            }
+            synchronized (memory) {
+                memory.put(key(distance, pageSize), entry);
+            }
+            return entry;
+        } catch (IOException e) {
+            // Corrupted page is the same as absent one
+            //noinspection ResultOfMethodCallIgnored
+            file.delete();
+            return null;
+        }
+    }
+
+    /**
+     * Puts page to memory tier and writes it to disk tier in background.
+     */
+    void put(final int distance, final int pageSize, @NonNull List<E> items) {
+        final CachedPage<E> entry = new CachedPage<>(Collections.unmodifiableList(items), System.currentTimeMillis());
+        synchronized (memory) {
+            memory.put(key(distance, pageSize), entry);
+        }
+        if (diskDirectory != null) {
+            diskExecutor.execute(() -> writeToDisk(key(distance, pageSize), entry));
+        }
+    }
+
+    boolean isFresh(@NonNull CachedPage<E> entry) {
+        return System.currentTimeMillis() - entry.time <= freshMillis;
+    }
+
+    private boolean isUsable(CachedPage<E> entry) {
+        return System.currentTimeMillis() - entry.time <= maxStaleMillis;
+    }
+
+    private String key(int distance, int pageSize) {
+        return sourceId + "_" + distance + "_" + pageSize;
+    }
+
+    @WorkerThread
+    private void writeToDisk(String key, CachedPage<E> entry) {
+        if (!diskDirectory.exists() && !diskDirectory.mkdirs()) {
+            return;
+        }
+
+        // Writes of the same key may run in parallel, so each one has its own temporary file
+        File tmp;
+        try {
+            tmp = File.createTempFile(key + "_", TEMP_EXTENSION, diskDirectory);
+        } catch (IOException e) {
+            return;
+        }
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tmp)))) {
+            out.writeInt(DISK_FORMAT_VERSION);
+            out.writeLong(entry.time);
+            serializer.write(entry.items, out);
+        } catch (IOException e) {
+            //noinspection ResultOfMethodCallIgnored
+            tmp.delete();
+            return;
+        }
+        if (!tmp.renameTo(new File(diskDirectory, key + FILE_EXTENSION))) {
+            //noinspection ResultOfMethodCallIgnored
+            tmp.delete();
+        }
+
+        trimDisk();
+    }
+
+    @WorkerThread
+    private void trimDisk() {
+        File[] files = diskFiles();
+        if (files.length <= maxDiskPages) {
+            return;
+        }
+
+        Arrays.sort(files, (a, b) -> Long.compare(a.lastModified(), b.lastModified()));
+        for (int i = 0; i < files.length - maxDiskPages; i++) {
+            //noinspection ResultOfMethodCallIgnored
+            files[i].delete();
+        }
+    }
+
+    private File[] diskFiles() {
+        final String prefix = sourceId + "_";
+        File[] files = diskDirectory.listFiles((dir, name) -> name.startsWith(prefix) && name.endsWith(FILE_EXTENSION));
+        return files == null ? new File[0] : files;
+    }
+
+    static final class CachedPage<E> {
+
+        private final List<E> items;
+        private final long time;
+
+        CachedPage(List<E> items, long time) {
+            this.items = items;
+            this.time = time;
+        }
+
+        List<E> getItems() {
+            return items;
+        }
+    }
+
+    public static final class Builder<E> {
+
+        // Init with default values
+        private final String sourceId;
+        private int memoryPages = 20;
+        private File diskDirectory;
+        private int maxDiskPages = 100;
+        private PageSerializer<E> serializer;
+        private long freshMillis = 60 * 1000;
+        private long maxStaleMillis = 24 * 60 * 60 * 1000;
+
+        /**
+         * @param sourceId Identifier of data source, for example request path. Used in file names,
+         *                 so only letters, digits, '-' and '_' are allowed.
+         * @throws IllegalArgumentException If source id contains other characters.
+         */
+        public Builder(@NonNull String sourceId) {
+            if (sourceId.isEmpty() || !sourceId.matches("[A-Za-z0-9_-]+")) {
+                throw new IllegalArgumentException("Source id must contain only letters, digits, '-' and '_'");
+            }
+            this.sourceId = sourceId;
+        }
+
+        public Builder<E> setMemoryPages(int memoryPages) {
+            if (memoryPages < 1) {
+                throw new IllegalArgumentException("Memory pages must be positive");
+            }
+            this.memoryPages = memoryPages;
+            return this;
+        }
+
+        /**
+         * Enables disk tier.
+         * @param diskDirectory Directory for page files, for example subdirectory of {@link android.content.Context#getCacheDir()}.
+         * @param serializer Serializer for pages.
+         * @param maxDiskPages How many pages of this source to keep on disk.
+         */
+        public Builder<E> setDiskCache(@NonNull File diskDirectory, @NonNull PageSerializer<E> serializer, int maxDiskPages) {
+            if (maxDiskPages < 1) {
+                throw new IllegalArgumentException("Max disk pages must be positive");
+            }
+            this.diskDirectory = diskDirectory;
+            this.serializer = serializer;
+            this.maxDiskPages = maxDiskPages;
+            return this;
+        }
+
+        /**
+         * Sets stale-while-revalidate policy.
+         * @param freshMillis Page younger than this is used without request.
+         * @param maxStaleMillis Page older than this is not used, page in between is used and requested again.
+         */
+        public Builder<E> setExpiration(long freshMillis, long maxStaleMillis) {
+            if (freshMillis < 0 || maxStaleMillis < freshMillis) {
+                throw new IllegalArgumentException("Expiration must satisfy 0 <= fresh <= max stale");
+            }
+            this.freshMillis = freshMillis;
+            this.maxStaleMillis = maxStaleMillis;
+            return this;
+        }
+
+        @NonNull
+        public PageCache<E> build() {
+            return new PageCache<>(this);
+        }
+    }
+}
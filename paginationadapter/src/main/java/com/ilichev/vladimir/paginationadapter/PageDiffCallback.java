@@ -0,0 +1,102 @@
+package com.ilichev.vladimir.paginationadapter;
+
+import android.support.annotation.NonNull;
+import android.support.v7.util.DiffUtil;
+
+import java.util.List;
+
+/**
+ * Compares two snapshots of the same list range with client {@link DiffUtil.ItemCallback}.
+ * Placeholders (nulls) are only the same as other placeholders.
+ */
+class PageDiffCallback<E> extends DiffUtil.Callback {
+
+    private final List<E> oldItems;
+    private final List<E> newItems;
+    private final DiffUtil.ItemCallback<E> itemCallback;
+
+    PageDiffCallback(@NonNull List<E> oldItems, @NonNull List<E> newItems, @NonNull DiffUtil.ItemCallback<E> itemCallback) {
+        this.oldItems = oldItems;
+        this.newItems = newItems;
+        this.itemCallback = itemCallback;
+    }
+
+    @Override
+    public int getOldListSize() {
+        return oldItems.size();
+    }
+
+    @Override
+    public int getNewListSize() {
+        return newItems.size();
+    }
+
+    @Override
+    public boolean areItemsTheSame(int oldItemPosition, int newItemPosition) {
+        E oldItem = oldItems.get(oldItemPosition);
+        E newItem = newItems.get(newItemPosition);
+        if (oldItem == null || newItem == null) {
+            return oldItem == newItem;
+        }
+        return itemCallback.areItemsTheSame(oldItem, newItem);
+    }
+
+    @Override
+    public boolean areContentsTheSame(int oldItemPosition, int newItemPosition) {
+        E oldItem = oldItems.get(oldItemPosition);
+        E newItem = newItems.get(newItemPosition);
+        if (oldItem == null || newItem == null) {
+            return oldItem == newItem;
+        }
+        return itemCallback.areContentsTheSame(oldItem, newItem);
+    }
+
+    @Override
+    public Object getChangePayload(int oldItemPosition, int newItemPosition) {
+        E oldItem = oldItems.get(oldItemPosition);
+        E newItem = newItems.get(newItemPosition);
+        if (oldItem == null || newItem == null) {
+            return null;
+        }
+        return itemCallback.getChangePayload(oldItem, newItem);
+    }
+
+    /**
+     * Default item callback when {@link ItemKeyProvider} is set.
+     * Items with the same key are the same, contents are compared with {@link Object#equals(Object)}.
+     */
+    static final class KeyItemCallback<E> extends DiffUtil.ItemCallback<E> {
+
+        private final ItemKeyProvider<E> keyProvider;
+
+        KeyItemCallback(@NonNull ItemKeyProvider<E> keyProvider) {
+            this.keyProvider = keyProvider;
+        }
+
+        @Override
+        public boolean areItemsTheSame(@NonNull E oldItem, @NonNull E newItem) {
+            return keyProvider.getKey(oldItem) == keyProvider.getKey(newItem);
+        }
+
+        @Override
+        public boolean areContentsTheSame(@NonNull E oldItem, @NonNull E newItem) {
+            return oldItem.equals(newItem);
+        }
+    }
+
+    /**
+     * Default item callback. Items are compared with {@link Object#equals(Object)}.
+     */
+    static final class EqualsItemCallback<E> extends DiffUtil.ItemCallback<E> {
+
+        @Override
+        public boolean areItemsTheSame(@NonNull E oldItem, @NonNull E newItem) {
+            return oldItem.equals(newItem);
+        }
+
+        @Override
+        public boolean areContentsTheSame(@NonNull E oldItem, @NonNull E newItem) {
+            return oldItem.equals(newItem);
+        }
+    }
+}
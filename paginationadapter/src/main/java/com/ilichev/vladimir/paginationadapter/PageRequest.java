@@ -0,0 +1,255 @@
+package com.ilichev.vladimir.paginationadapter;
+
+import android.support.annotation.NonNull;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Handle of a page request issued by {@link PaginationAdapter}.
+ * Request is tagged with adapter generation. {@link PaginationAdapter#reset()}, reload after
+ * {@link PaginationAdapter#remove(int)} and detaching from {@link android.support.v7.widget.RecyclerView}
+ * start new generation and cancel all outstanding requests, so results of cancelled requests
+ * set through {@link PaginationAdapter#setData(PageRequest, List)} are dropped before they touch the list.
+ * Client can stop the work itself when request is cancelled, see {@link #setOnCancelListener(OnCancelListener)}.
+ */
+public final class PageRequest {
+
+    private final int distance;
+    private final int pageSize;
+    private final int generation;
+    private final Type type;
+
+    private boolean cancelled;
+    private OnCancelListener onCancelListener;
+
+    // Adapter bookkeeping, accessed on main thread only
+    private PageState state = PageState.LOADING;
+    private List<?> data;
+    private long requestTime;
+    // Items emitted by PageSource and how many of them are already added to the list
+    private List<Object> streamedItems;
+    private int shownCount;
+    private int attempt;
+    // Key of the page and result of LoadNextKeyCallback
+    private Object key;
+    private Object nextKey;
+    private boolean keyed;
+    private boolean hasMore;
+    // Version (ETag) of the page set with result
+    private Object version;
+    // Failures in a row, see RetryPolicy
+    private int failures;
+    // Load callback was called and its result has not come yet
+    private boolean awaitingResult;
+    // Client stops loading when request gets cancelled, so result of cancelled request never comes
+    private boolean stopsOnCancel;
+
+    PageRequest(int distance, int pageSize, int generation, Type type) {
+        this.distance = distance;
+        this.pageSize = pageSize;
+        this.generation = generation;
+        this.type = type;
+    }
+
+    /**
+     * @return Offset of the requested page.
+     */
+    public int getDistance() {
+        return distance;
+    }
+
+    public int getPageSize() {
+        return pageSize;
+    }
+
+    /**
+     * @return Number of the requested page, starting from 1.
+     */
+    public int getPage() {
+        return distance / pageSize + 1;
+    }
+
+    public int getGeneration() {
+        return generation;
+    }
+
+    public synchronized boolean isCancelled() {
+        return cancelled;
+    }
+
+    /**
+     * Sets listener that is called once request gets cancelled.
+     * If request is already cancelled listener is called immediately.
+     * @param onCancelListener Listener to set.
+     */
+    public void setOnCancelListener(@NonNull OnCancelListener onCancelListener) {
+        synchronized (this) {
+            stopsOnCancel = true;
+            if (!cancelled) {
+                this.onCancelListener = onCancelListener;
+                return;
+            }
+        }
+        onCancelListener.onCancel();
+    }
+
+    void cancel() {
+        OnCancelListener listener;
+        synchronized (this) {
+            if (cancelled) {
+                return;
+            }
+            cancelled = true;
+            listener = onCancelListener;
+            onCancelListener = null;
+        }
+        if (listener != null) {
+            listener.onCancel();
+        }
+    }
+
+    Type getType() {
+        return type;
+    }
+
+    boolean isAppend() {
+        return type == Type.APPEND;
+    }
+
+    PageState getState() {
+        return state;
+    }
+
+    void setState(PageState state) {
+        this.state = state;
+    }
+
+    long getRequestTime() {
+        return requestTime;
+    }
+
+    void setRequestTime(long requestTime) {
+        this.requestTime = requestTime;
+    }
+
+    List<?> getData() {
+        return data;
+    }
+
+    void setData(List<?> data) {
+        this.data = data;
+        state = PageState.LOADED;
+    }
+
+    /**
+     * Starts new subscription to page source. Items that were not shown are dropped,
+     * source emits them again.
+     * @return Number of the attempt.
+     */
+    int startAttempt() {
+        if (streamedItems == null) {
+            streamedItems = new ArrayList<>();
+        } else {
+            streamedItems.subList(shownCount, streamedItems.size()).clear();
+        }
+        return ++attempt;
+    }
+
+    Object getKey() {
+        return key;
+    }
+
+    void setKey(Object key) {
+        this.key = key;
+    }
+
+    /**
+     * Sets page loaded by key, its result tells whether there are more pages.
+     */
+    void setKeyedData(List<?> data, Object nextKey, boolean hasMore) {
+        setData(data);
+        this.nextKey = nextKey;
+        this.hasMore = hasMore;
+        keyed = true;
+    }
+
+    boolean isKeyed() {
+        return keyed;
+    }
+
+    Object getNextKey() {
+        return nextKey;
+    }
+
+    boolean hasMore() {
+        return hasMore;
+    }
+
+    Object getVersion() {
+        return version;
+    }
+
+    void setVersion(Object version) {
+        this.version = version;
+    }
+
+    void setAwaitingResult(boolean awaitingResult) {
+        this.awaitingResult = awaitingResult;
+    }
+
+    /**
+     * @return True if result of this request will come even though request is cancelled.
+     */
+    synchronized boolean isResultComing() {
+        return awaitingResult && !stopsOnCancel;
+    }
+
+    int addFailure() {
+        return ++failures;
+    }
+
+    int getFailures() {
+        return failures;
+    }
+
+    void resetFailures() {
+        failures = 0;
+    }
+
+    int getAttempt() {
+        return attempt;
+    }
+
+    List<Object> getStreamedItems() {
+        return streamedItems;
+    }
+
+    int getShownCount() {
+        return shownCount;
+    }
+
+    void setShownCount(int shownCount) {
+        this.shownCount = shownCount;
+    }
+
+    enum Type {
+        // Next page to add to the end of the list
+        APPEND,
+        // Page dropped in windowed mode
+        RESTORE,
+        // Page shown from cache and requested again
+        REVALIDATE
+    }
+
+    /**
+     * Listener for request cancellation.
+     */
+    public interface OnCancelListener {
+
+        /**
+         * Called when adapter is not interested in request result anymore.
+         */
+        void onCancel();
+    }
+}
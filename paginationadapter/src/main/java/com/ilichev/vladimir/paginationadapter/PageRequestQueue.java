@@ -0,0 +1,181 @@
+package com.ilichev.vladimir.paginationadapter;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Requests that are in flight, in order they were issued.
+ * Append requests are issued with growing distance, so the first append request is always the next page
+ * to add to the list. Pages that arrive earlier stay buffered in their requests until it is their turn.
+ */
+final class PageRequestQueue {
+
+    // Results set without request handle or distance are not matched with cancelled requests,
+    // so only that many of the latest cancelled requests are remembered
+    private static final int MAX_CANCELLED = 32;
+
+    private final List<PageRequest> requests = new ArrayList<>();
+    // Cancelled requests whose results are still on the way, in order they were issued
+    private final List<PageRequest> cancelled = new ArrayList<>();
+
+    PageRequest enqueue(int distance, int pageSize, int generation, PageRequest.Type type) {
+        PageRequest request = new PageRequest(distance, pageSize, generation, type);
+        requests.add(request);
+        return request;
+    }
+
+    /**
+     * @return Request for given distance or null if adapter does not wait for such page.
+     */
+    PageRequest find(int distance) {
+        for (int i = 0; i < requests.size(); i++) {
+            PageRequest request = requests.get(i);
+            if (request.getDistance() == distance) {
+                return request;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * @return The earliest issued request that is still loading or null if there is no such request.
+     */
+    PageRequest oldestLoading() {
+        for (int i = 0; i < requests.size(); i++) {
+            PageRequest request = requests.get(i);
+            if (request.getState() == PageState.LOADING) {
+                return request;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * @return Request for the next page to append or null if there is no append request.
+     */
+    PageRequest headAppend() {
+        for (int i = 0; i < requests.size(); i++) {
+            PageRequest request = requests.get(i);
+            if (request.isAppend()) {
+                return request;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Removes the next page to append if it is already loaded.
+     * @return Loaded request or null if the next page has not arrived yet.
+     */
+    PageRequest pollReadyAppend() {
+        PageRequest head = headAppend();
+        if (head == null || head.getState() != PageState.LOADED) {
+            return null;
+        }
+        requests.remove(head);
+        return head;
+    }
+
+    /**
+     * @param fallback Distance to use when there is no append request in flight.
+     * @return Distance of the page after the last requested one.
+     */
+    int nextAppendDistance(int fallback, int pageSize) {
+        int next = fallback;
+        for (int i = 0; i < requests.size(); i++) {
+            PageRequest request = requests.get(i);
+            if (request.isAppend()) {
+                next = Math.max(next, request.getDistance() + pageSize);
+            }
+        }
+        return next;
+    }
+
+    boolean hasRestore() {
+        for (int i = 0; i < requests.size(); i++) {
+            if (requests.get(i).getType() == PageRequest.Type.RESTORE) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    List<PageRequest> failed() {
+        List<PageRequest> failed = new ArrayList<>();
+        for (int i = 0; i < requests.size(); i++) {
+            PageRequest request = requests.get(i);
+            if (request.getState() == PageState.ERROR) {
+                failed.add(request);
+            }
+        }
+        return failed;
+    }
+
+    boolean contains(PageRequest request) {
+        return requests.contains(request);
+    }
+
+    void remove(PageRequest request) {
+        requests.remove(request);
+    }
+
+    void cancelAppends() {
+        int at = cancelled.size();
+        for (int i = requests.size() - 1; i >= 0; i--) {
+            if (requests.get(i).isAppend()) {
+                cancel(i, at);
+            }
+        }
+        trimCancelled();
+    }
+
+    void cancelAll() {
+        int at = cancelled.size();
+        for (int i = requests.size() - 1; i >= 0; i--) {
+            cancel(i, at);
+        }
+        trimCancelled();
+    }
+
+    /**
+     * Result of cancelled request came with its handle.
+     */
+    void onCancelledResult(PageRequest request) {
+        cancelled.remove(request);
+    }
+
+    /**
+     * Matches result that came with distance with cancelled requests first. Results for the same distance
+     * come in order of requests, so while cancelled request for the distance waits for its result,
+     * the result is its late one even if the same distance is requested again.
+     * @return True if result belongs to cancelled request and must be dropped.
+     */
+    boolean dropCancelledResult(int distance) {
+        for (int i = 0; i < cancelled.size(); i++) {
+            if (cancelled.get(i).getDistance() == distance) {
+                cancelled.remove(i);
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void cancel(int index, int at) {
+        PageRequest request = requests.remove(index);
+        if (request.isResultComing()) {
+            // Requests are cancelled from the tail, inserting at the same index keeps their order
+            cancelled.add(at, request);
+        }
+        request.cancel();
+    }
+
+    private void trimCancelled() {
+        if (cancelled.size() > MAX_CANCELLED) {
+            cancelled.subList(0, cancelled.size() - MAX_CANCELLED).clear();
+        }
+    }
+
+    int size() {
+        return requests.size();
+    }
+}
@@ -0,0 +1,52 @@
+package com.ilichev.vladimir.paginationadapter;
+
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+
+import java.util.List;
+
+/**
+ * Page loaded by key (cursor), see {@link PaginationAdapter.LoadNextKeyCallback}.
+ * Server tells whether there are more items, so the last page does not need to be shorter than page size.
+ * @param <E> Item class.
+ * @param <K> Key class.
+ */
+public final class PageResult<E, K> {
+
+    private final List<E> items;
+    private final K nextKey;
+    private final boolean hasMore;
+
+    /**
+     * @param items Items of the page.
+     * @param nextKey Key to request the next page with.
+     * @param hasMore False if this is the last page.
+     */
+    public PageResult(@NonNull List<E> items, @Nullable K nextKey, boolean hasMore) {
+        this.items = items;
+        this.nextKey = nextKey;
+        this.hasMore = hasMore;
+    }
+
+    /**
+     * @return Result for the last page.
+     */
+    @NonNull
+    public static <E, K> PageResult<E, K> last(@NonNull List<E> items) {
+        return new PageResult<>(items, null, false);
+    }
+
+    @NonNull
+    public List<E> getItems() {
+        return items;
+    }
+
+    @Nullable
+    public K getNextKey() {
+        return nextKey;
+    }
+
+    public boolean hasMore() {
+        return hasMore;
+    }
+}
@@ -0,0 +1,32 @@
+package com.ilichev.vladimir.paginationadapter;
+
+import android.support.annotation.NonNull;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Writes pages to disk and reads them back. Used by {@link PageCache} disk tier.
+ * @param <E> Item class.
+ */
+public interface PageSerializer<E> {
+
+    /**
+     * Writes page items.
+     * @param items Page items.
+     * @param out Output to write to.
+     * @throws IOException If writing failed.
+     */
+    void write(@NonNull List<E> items, @NonNull DataOutput out) throws IOException;
+
+    /**
+     * Reads page items written by {@link #write(List, DataOutput)}.
+     * @param in Input to read from.
+     * @return Page items.
+     * @throws IOException If reading failed or data is corrupted.
+     */
+    @NonNull
+    List<E> read(@NonNull DataInput in) throws IOException;
+}
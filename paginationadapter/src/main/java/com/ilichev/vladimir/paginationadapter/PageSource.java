@@ -0,0 +1,69 @@
+package com.ilichev.vladimir.paginationadapter;
+
+import android.support.annotation.NonNull;
+
+/**
+ * Pull based source of pages, see {@link PaginationAdapter#setPageSource(PageSource)}.
+ * Semantics follow {@code java.util.concurrent.Flow} (which is not available on older Android versions):
+ * adapter subscribes to a page when scrolling needs it, requests items of the page as demand and the source
+ * emits at most requested number of items, one by one as they arrive, then completes the page.
+ * Items emitted for the next page to add are shown right away, so streaming backends fill the list progressively.
+ * Subscription is cancelled when adapter does not need the page anymore, for example when it is detached
+ * from {@link android.support.v7.widget.RecyclerView}.
+ * Source may signal from any thread, adapter moves signals to the main thread.
+ * Page that is requested again after error must emit the same items.
+ * @param <E> Item class.
+ */
+public interface PageSource<E> {
+
+    /**
+     * Starts loading of the page. Source must call {@link Subscriber#onSubscribe(Subscription)} first.
+     * @param request Requested page, see {@link PageRequest#getDistance()} and {@link PageRequest#getPageSize()}.
+     * @param subscriber Receiver of page items.
+     */
+    void subscribe(@NonNull PageRequest request, @NonNull Subscriber<? super E> subscriber);
+
+    /**
+     * Receiver of page items.
+     * @param <E> Item class.
+     */
+    interface Subscriber<E> {
+
+        /**
+         * Called once before any other signal.
+         */
+        void onSubscribe(@NonNull Subscription subscription);
+
+        /**
+         * Next item of the page. Called no more times than requested.
+         */
+        void onNext(@NonNull E item);
+
+        /**
+         * Page failed to load, footer shows error until {@link PaginationAdapter#retry()}.
+         * Items emitted before error stay in the list.
+         */
+        void onError(@NonNull Throwable error);
+
+        /**
+         * All items of the page are emitted. Page with less items than page size is the last one.
+         */
+        void onComplete();
+    }
+
+    /**
+     * Link between source and subscriber.
+     */
+    interface Subscription {
+
+        /**
+         * Adds demand for n more items.
+         */
+        void request(long n);
+
+        /**
+         * Stops emission, source should release resources of the page.
+         */
+        void cancel();
+    }
+}
@@ -1,19 +1,77 @@
 package com.ilichev.vladimir.paginationadapter;
 
+import android.content.ComponentCallbacks2;
+import android.content.Context;
+import android.content.res.Configuration;
+import android.os.Build;
+import android.os.Bundle;
+import android.os.SystemClock;
+import android.os.Trace;
 import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+import android.support.annotation.VisibleForTesting;
+import android.support.v7.util.AdapterListUpdateCallback;
+import android.support.v7.util.DiffUtil;
+import android.support.v7.util.ListUpdateCallback;
+import android.support.v7.widget.GridLayoutManager;
 import android.support.v7.widget.LinearLayoutManager;
 import android.support.v7.widget.RecyclerView;
+import android.support.v7.widget.StaggeredGridLayoutManager;
+import android.util.SparseArray;
 import android.view.LayoutInflater;
 import android.view.View;
 import android.view.ViewGroup;
+import android.widget.FrameLayout;
 
+import com.ilichev.vladimir.paginationadapter.core.PagingEngine;
+import com.ilichev.vladimir.paginationadapter.core.PositionIndex;
+import com.ilichev.vladimir.paginationadapter.core.SparseItemList;
+
+import java.io.DataInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.concurrent.Executor;
 
 /**
  * This class allow easy to display paged lists. Behavior depends on three main arguments.
  * First one is data limit, it tells to adapter when to stop for requesting more data. To set this value use {@link PagingConfig.Builder#setDataLimit(int)}.
  * Second is page size, it defines how much adapter display and requesting data at one time. Use {@link PagingConfig.Builder#setPageSize(int)} to set it.
  * Third is load threshold, it defines at what distance from end start to prefetch new page. Use {@link PagingConfig.Builder#setLoadThreshold(int)} to set it.
+ * Instead of fixed threshold adapter can use {@link AdaptivePrefetchPolicy}, see {@link #setPrefetchPolicy(PrefetchPolicy)}.
+ * For long lists adapter can keep only a window of pages around visible items, see {@link PagingConfig.Builder#setWindowSize(int)}.
+ * Newer snapshots of the list or a single page can be applied with {@link #submitList(List)} and {@link #submitPage(int, List)},
+ * differences are calculated in background and only changed items are rebound.
+ * Several pages can be requested at once, see {@link PagingConfig.Builder#setMaxConcurrentRequests(int)}.
+ * Each request is described by {@link PageRequest} handle, setting results through it guarantees that
+ * results of cancelled requests never get to the list.
+ * Loaded pages can be kept in {@link PageCache}, see {@link #setPageCache(PageCache)}.
+ * Several changes can be applied as one batch with merged notifications, see {@link #beginBatch()}.
+ * Results ({@code setData}, {@code setError} and {@link #setTotalCount(int)}) can be set from any thread. Results set
+ * off the main thread are applied on the main thread once per frame, all of them in one batch. Results are applied
+ * in order they were set, result set on the main thread is applied after results queued from other threads before it.
+ * Adapter reports its metrics to {@link PagingMetricsListener} and can emit trace sections, see {@link #setTraceEnabled(boolean)}.
+ * Adapter works with {@link android.support.v7.widget.LinearLayoutManager}, {@link GridLayoutManager} and {@link StaggeredGridLayoutManager},
+ * for grids load threshold is counted in rows and footer spans the full row.
+ * Items of different layouts are displayed with {@link ItemViewType}s, see {@link #registerItemViewType(ItemViewType)}.
+ * View type ids never collide, so several adapters can share one {@link RecyclerView.RecycledViewPool}.
+ * Ids of holders created by factory methods of adapter are shared by all instances of adapter class,
+ * see {@link #createItemViewHolder(ViewGroup)}.
+ * Holders for the first page can be created in background in advance, see {@link PagingConfig.Builder#setPrewarmItemHolders(int)}.
+ * Resources of items ahead of visible range can be warmed before binding, see {@link #setItemPrefetcher(ItemPrefetcher)}.
  * Adapter use default views to display loading progress and error message. For more control client can override
  * {@link #createStateProgressViewHolder(ViewGroup)} and {@link #createStateErrorViewHolder(ViewGroup)} for custom behavior.
  * @param <E> Data class that wil be displayed in {@link ItemHolder}
@@ -23,23 +81,120 @@ public abstract class PaginationAdapter<E> extends RecyclerView.Adapter<Recycler
     private List<E> data;
 
     // This fields configurable. See PagingConfig class for default values
-    private int dataLimit;
     private int pageSize;
     private int loadThreshold;
+    private int windowSize;
+    private int maxConcurrentRequests;
+    private int prewarmItemHolders;
+    private int prewarmStateHolders;
+
+    // Distance of the next page, data limit and state of the footer.
+    // Each requested page has its own state, see PageRequest.
+    private final PagingEngine engine;
+    private final PageRequestQueue requests = new PageRequestQueue();
+    // Incremented when outstanding requests get cancelled
+    private int generation;
+    // Number of reset() calls. Until the first reset the first page can be set without request.
+    private int resets;
+
+    private final PositionIndex<E> positionIndex = new PositionIndex<>();
+    private ItemKeyProvider<E> keyProvider;
+
+    // All notifications go through batch, outside of batch they are dispatched immediately
+    private final NotificationBatch updates = new NotificationBatch(new MeteredUpdateCallback());
+    private ListUpdateCallback updateTarget = new AdapterListUpdateCallback(this);
+    // Results set from background threads, applied once per frame in one batch
+    private Executor frameExecutor = PagingExecutors::postFrame;
+    private PagingExecutors.ThreadCheck threadCheck = PagingExecutors.MAIN_LOOPER;
+    private final FrameQueue results = new FrameQueue(updates, action -> frameExecutor.execute(action));
 
-    private int distance;
-    private int currentPage;
+    // Windowed mode bookkeeping. Dropped items are stored as nulls in data,
+    // bit per page tells whether page items are in memory.
+    private final BitSet loadedPages = new BitSet();
+    private final VisibleRangeTracker visibleRange = new VisibleRangeTracker();
+    private int firstVisiblePosition = RecyclerView.NO_POSITION;
+    private int lastVisiblePosition = RecyclerView.NO_POSITION;
+    private Context memoryContext;
+    private RecyclerView.OnScrollListener scrollListener;
+    private RecyclerView recyclerView;
+    // Footer span lookup installed to the grid layout manager of attached RecyclerView
+    private RecyclerView.LayoutManager spanLookupManager;
+    private FooterSpanSizeLookup spanLookup;
+    // Scroll position restored with restoreState() and applied when adapter is attached
+    private int pendingAnchorPosition = RecyclerView.NO_POSITION;
+    private int pendingAnchorOffset;
+    // Changes on every detach, holders prewarmed for previous attach are dropped
+    private int attachCount;
 
-    private PageState currentSate = PageState.LOADED;
+    // Diffing of submitted snapshots. Every change of data increments modCount,
+    // so diffs calculated against older snapshot are calculated again.
+    private DiffUtil.ItemCallback<E> diffCallback;
+    private Executor diffExecutor = PagingExecutors.background();
+    private Executor mainThreadExecutor = PagingExecutors.mainThread();
+    private final Map<Integer, Integer> pageGenerations = new HashMap<>();
+    private int listGeneration;
+    private int pageGeneration;
+    private int modCount;
+
+    // Results of item preparer by item instance, accessed on the main thread only. Replaced and dropped
+    // items are forgotten right away, entries of other removed items when map outgrows the list.
+    private ItemPreparer<E, ?> itemPreparer;
+    private final Map<E, Object> preparedItems = new IdentityHashMap<>();
+    // Warming of item resources ahead of visible range, see setItemPrefetcher()
+    private final ItemPrefetchScheduler<E> itemPrefetches;
+
+    private PagingMetricsListener metricsListener;
+    private boolean traceEnabled;
+    // Start of waiting for the first page or 0 if adapter does not wait for it
+    private long firstPageStart;
+    // When progress footer was attached to window or 0 if it is not on screen
+    private long footerShownTime;
+
+    private PrefetchPolicy prefetchPolicy;
+    // Null if failed pages wait for retry()
+    private final RetryTracker retryTracker;
+    // Retries waiting for their delay, cancelled together with their requests
+    private PagingExecutors.DelayedExecutor retryExecutor = PagingExecutors.MAIN_HANDLER;
+    private final List<Runnable> pendingRetries = new ArrayList<>();
+    private PageCache<E> pageCache;
 
     private LoadNextPartCallback loadNextPartCallback;
     private LoadNextPageCallback loadNextPageCallback;
+    private PageSource<E> pageSource;
+    private LoadNextKeyCallback<Object> loadNextKeyCallback;
+    // Key of the next page and keys of loaded pages for restoring them in windowed mode
+    private Object nextKey;
+    private final Map<Integer, Object> pageKeys = new HashMap<>();
+    // Versions of loaded pages and pages that are not refreshed yet, see refresh()
+    private final TreeMap<Integer, Object> pageVersions = new TreeMap<>();
+    private final BitSet stalePages = new BitSet();
+    // List is padded with placeholders up to total count, see setTotalCount()
+    private boolean totalCountKnown;
+
+    // View type ids are allocated by ViewTypeIds. Holders created by the same adapter class
+    // or ItemViewTypes with the same key share ids, so they can be reused through shared pool.
+    // Ids are per class rather than per instance, so adapters recreated for the same list reuse pooled holders.
+    private final int itemViewType;
+    private final int footerProgressViewType;
+    private final int footerErrorViewType;
+    private final int placeholderViewType;
+    private final List<ItemViewType<E>> itemViewTypes = new ArrayList<>();
+    // Ids of registered types in order of registration
+    private int[] itemViewTypeIds = new int[0];
+    private final SparseArray<ItemViewType<E>> itemViewTypesById = new SparseArray<>();
 
-    // It is not good enough to set view types like this.
-    // Try to rethink this approach to avoid collisions. Maybe try to get it from R.layout file.
-    private static final int ITEM_VIEW_TYPE = 42;
-    private static final int FOOTER_PROGRESS_VIEW_TYPE = 43;
-    private static final int FOOTER_ERROR_VIEW_TYPE = 44;
+    private static final int NO_PAGE = -1;
+
+    private static final String STATE_KEY = "com.ilichev.vladimir.paginationadapter.STATE";
+    private static final String STATE_FILE_KEY = "com.ilichev.vladimir.paginationadapter.STATE_FILE";
+    // Bundle goes through binder buffer shared by the whole process, bigger states are written to a file
+    private static final int MAX_BUNDLE_STATE_BYTES = 64 * 1024;
+    // File of the last state too big for Bundle, deleted by the next save and by reset
+    private File spillFile;
+
+    // Stable ids reserved for footer and placeholders, see ItemKeyProvider
+    private static final long FOOTER_ID = Long.MIN_VALUE;
+    private static final long PLACEHOLDER_ID_BASE = Long.MIN_VALUE + 1;
 
     public PaginationAdapter(@NonNull List<E> data) {
         this(data, new PagingConfig.Builder().build());
@@ -47,61 +202,185 @@ public abstract class PaginationAdapter<E> extends RecyclerView.Adapter<Recycler
 
     public PaginationAdapter(@NonNull List<E> data, @NonNull PagingConfig config) {
         this.data = data;
-        dataLimit = config.getDataLimit();
         pageSize = config.getPageSize();
         loadThreshold = config.getLoadThreshold();
+        windowSize = config.getWindowSize();
+        maxConcurrentRequests = config.getMaxConcurrentRequests();
+        prewarmItemHolders = config.getPrewarmItemHolders();
+        prewarmStateHolders = config.getPrewarmStateHolders();
+        prefetchPolicy = new StaticPrefetchPolicy(loadThreshold);
+        retryTracker = config.getRetryPolicy() == null ? null : new RetryTracker(config.getRetryPolicy(), new Random());
+        itemPrefetches = new ItemPrefetchScheduler<>(config.getItemPrefetchDistance(),
+                config.getMaxConcurrentItemPrefetches(), () -> threadCheck.isMainThread(),
+                command -> mainThreadExecutor.execute(command));
 
-        distance = 0 - pageSize;
-        currentPage = distance / pageSize + 1;
+        itemViewType = ViewTypeIds.obtain(Arrays.asList(getClass(), "item"));
+        footerProgressViewType = ViewTypeIds.obtain(Arrays.asList(getClass(), "progress"));
+        footerErrorViewType = ViewTypeIds.obtain(Arrays.asList(getClass(), "error"));
+        placeholderViewType = ViewTypeIds.obtain(Arrays.asList(getClass(), "placeholder"));
+
+        engine = new PagingEngine(pageSize, config.getDataLimit());
     }
 
     @Override
     public void onAttachedToRecyclerView(@NonNull RecyclerView recyclerView) {
         super.onAttachedToRecyclerView(recyclerView);
-        recyclerView.addOnScrollListener(new PagedScrollListener());
+        this.recyclerView = recyclerView;
+        applyAnchor(recyclerView.getLayoutManager());
+        scrollListener = new PagedScrollListener();
+        recyclerView.addOnScrollListener(scrollListener);
+        startFirstPageTiming();
+
+        RecyclerView.RecycledViewPool pool = recyclerView.getRecycledViewPool();
+        for (int i = 0; i < itemViewTypes.size(); i++) {
+            pool.setMaxRecycledViews(itemViewTypeIds[i], itemViewTypes.get(i).getMaxRecycledViews());
+        }
+        if (data.isEmpty() && (prewarmItemHolders > 0 || prewarmStateHolders > 0)) {
+            prewarmHolders(recyclerView);
+        }
+
+        installSpanLookup(recyclerView.getLayoutManager());
+
+        if (isWindowed()) {
+            memoryContext = recyclerView.getContext().getApplicationContext();
+            memoryContext.registerComponentCallbacks(memoryCallbacks);
+        }
+
+        if (pageCache != null) {
+            // Show the first page from cache before the first layout
+            loadFirstPage();
+        }
+    }
+
+    @Override
+    public void onDetachedFromRecyclerView(@NonNull RecyclerView recyclerView) {
+        super.onDetachedFromRecyclerView(recyclerView);
+        recyclerView.removeOnScrollListener(scrollListener);
+        scrollListener = null;
+        uninstallSpanLookup();
+        this.recyclerView = null;
+        // Holders created in background for this RecyclerView are not needed anymore
+        attachCount++;
+
+        // Nobody will see results, pages are requested again after next attach
+        cancelRequests();
+        updateState(false);
+        itemPrefetches.cancelAll();
+
+        if (memoryContext != null) {
+            memoryContext.unregisterComponentCallbacks(memoryCallbacks);
+            memoryContext = null;
+        }
     }
 
     @NonNull
     @Override
     public RecyclerView.ViewHolder onCreateViewHolder(@NonNull ViewGroup parent, int viewType) {
-        switch (viewType) {
-            case ITEM_VIEW_TYPE:
-                return createItemViewHolder(parent);
-            case FOOTER_PROGRESS_VIEW_TYPE:
-                return createStateProgressViewHolder(parent);
-            case FOOTER_ERROR_VIEW_TYPE:
-                return createStateErrorViewHolder(parent);
-            default:
-                throw new IllegalArgumentException("Unknown view type: " + viewType);
+        if (viewType == itemViewType) {
+            return createItemViewHolder(parent);
+        } else if (viewType == footerProgressViewType) {
+            return createStateProgressViewHolder(parent);
+        } else if (viewType == footerErrorViewType) {
+            return createStateErrorViewHolder(parent);
+        } else if (viewType == placeholderViewType) {
+            return createPlaceholderViewHolder(parent);
+        }
+
+        ItemViewType<E> type = itemViewTypesById.get(viewType);
+        if (type == null) {
+            throw new IllegalArgumentException("Unknown view type: " + viewType);
         }
+        return type.createViewHolder(parent);
     }
 
     @Override
     public void onBindViewHolder(@NonNull RecyclerView.ViewHolder holder, int position) {
         if (holder instanceof ItemHolder) {
+            long start = metricsListener != null ? System.nanoTime() : 0;
+            beginTrace("PaginationAdapter#bind");
             ItemHolder<E> h = (ItemHolder) holder;
-            h.setItem(data.get(position));
+            E item = data.get(position);
+            h.setItem(item, itemPreparer != null ? preparedFor(item) : null);
+            endTrace();
+            if (metricsListener != null) {
+                metricsListener.onItemBound(holder.getItemViewType(), System.nanoTime() - start);
+            }
         } else if (holder instanceof StateHolder) {
+            if (holder instanceof DefaultErrorViewHolder) {
+                // Holder may come from pool shared with another adapter
+                ((DefaultErrorViewHolder) holder).setRetryDelegate(delegateImpl);
+            }
             StateHolder h = (StateHolder) holder;
-            h.setState(currentSate);
+            h.setState(position < data.size() ? PageState.LOADING : engine.getFooterState());
+            if (position < data.size()) {
+                requestPlaceholderPage(pageOf(position));
+            }
+
+            ViewGroup.LayoutParams params = holder.itemView.getLayoutParams();
+            if (params instanceof StaggeredGridLayoutManager.LayoutParams) {
+                ((StaggeredGridLayoutManager.LayoutParams) params).setFullSpan(isFooter(position));
+            }
+        }
+    }
+
+    @Override
+    public void onViewAttachedToWindow(@NonNull RecyclerView.ViewHolder holder) {
+        super.onViewAttachedToWindow(holder);
+        if (holder.getItemViewType() == footerProgressViewType) {
+            footerShownTime = SystemClock.uptimeMillis();
+        }
+    }
+
+    @Override
+    public void onViewDetachedFromWindow(@NonNull RecyclerView.ViewHolder holder) {
+        super.onViewDetachedFromWindow(holder);
+        if (holder.getItemViewType() == footerProgressViewType && footerShownTime != 0) {
+            if (metricsListener != null) {
+                metricsListener.onFooterStall(SystemClock.uptimeMillis() - footerShownTime);
+            }
+            footerShownTime = 0;
         }
     }
 
     @Override
     public int getItemViewType(int position) {
-        if (position == data.size()) {
-            if (currentSate == PageState.LOADING) {
-                return FOOTER_PROGRESS_VIEW_TYPE;
-            } else if (currentSate == PageState.ERROR) {
-                return FOOTER_ERROR_VIEW_TYPE;
+        if (position < data.size()) {
+            E item = data.get(position);
+            if (item == null) {
+                return placeholderViewType;
+            }
+            for (int i = 0; i < itemViewTypes.size(); i++) {
+                if (itemViewTypes.get(i).isForItem(item)) {
+                    return itemViewTypeIds[i];
+                }
+            }
+        } else if (position == data.size()) {
+            PageState footerState = engine.getFooterState();
+            if (footerState == PageState.LOADING) {
+                return footerProgressViewType;
+            } else if (footerState == PageState.ERROR) {
+                return footerErrorViewType;
             }
         }
-        return ITEM_VIEW_TYPE;
+        return itemViewType;
+    }
+
+    @Override
+    public long getItemId(int position) {
+        if (keyProvider == null) {
+            return RecyclerView.NO_ID;
+        }
+        if (position >= data.size()) {
+            return FOOTER_ID;
+        }
+
+        E item = data.get(position);
+        return item == null ? PLACEHOLDER_ID_BASE + position : keyProvider.getKey(item);
     }
 
     @Override
     public int getItemCount() {
-        if (currentSate == PageState.LOADING || currentSate == PageState.ERROR) {
+        if (engine.hasFooter()) {
             return data.size() + 1;
         } else {
             return data.size();
@@ -112,10 +391,41 @@ public abstract class PaginationAdapter<E> extends RecyclerView.Adapter<Recycler
      * Factory method for creating a {@link RecyclerView.ViewHolder} that displays item model.
      * Your ViewHolder must extend {@link ItemHolder}.
      * {@link PaginationAdapter} will call {@link ItemHolder#render()} when item get ready to display.
+     * It is used for items that no registered {@link ItemViewType} is for, adapters that display all items
+     * with registered types do not need to override it.
+     * Holders created by this and other factory methods get view type ids of adapter class, all instances
+     * of the class share them. So with shared {@link RecyclerView.RecycledViewPool} every instance must create
+     * the same kind of holders, adapters that create different holders for different parameters are
+     * separate classes or display items with {@link ItemViewType}s keyed by these parameters.
      * @param parent Parent view for item. See {@link RecyclerView.Adapter#onCreateViewHolder(ViewGroup, int)}
      * @return Item VIewHolder
+     * @throws IllegalStateException If method is not overridden.
+     */
+    protected ItemHolder<E> createItemViewHolder(@NonNull ViewGroup parent) {
+        throw new IllegalStateException("No item view type for item, override createItemViewHolder or register ItemViewType");
+    }
+
+    /**
+     * Registers a kind of item layout. Items are displayed with the first registered type that is for them,
+     * other items are displayed with {@link #createItemViewHolder(ViewGroup)}.
+     * Max pool size of the type is applied to {@link RecyclerView.RecycledViewPool} when adapter is attached,
+     * so register types and share the pool before {@link RecyclerView#setAdapter(RecyclerView.Adapter)}.
+     * @param type Type to register.
+     * @return View type id of the type, the same in all adapters.
+     * @throws IllegalArgumentException If type with the same key is already registered.
      */
-    protected abstract ItemHolder<E> createItemViewHolder(@NonNull ViewGroup parent);
+    public int registerItemViewType(@NonNull ItemViewType<E> type) {
+        int id = ViewTypeIds.obtain(type.getViewTypeKey());
+        if (itemViewTypesById.get(id) != null) {
+            throw new IllegalArgumentException("Item view type " + type.getViewTypeKey() + " is already registered");
+        }
+
+        itemViewTypes.add(type);
+        itemViewTypesById.put(id, type);
+        itemViewTypeIds = Arrays.copyOf(itemViewTypeIds, itemViewTypeIds.length + 1);
+        itemViewTypeIds[itemViewTypeIds.length - 1] = id;
+        return id;
+    }
 
     /**
      * Override this factory method to provide {@link PaginationAdapter} custom progress {@link RecyclerView.ViewHolder} in
@@ -139,31 +449,115 @@ public abstract class PaginationAdapter<E> extends RecyclerView.Adapter<Recycler
         return new DefaultErrorViewHolder(v, delegateImpl);
     }
 
+    /**
+     * Override this factory method to provide {@link PaginationAdapter} custom placeholder {@link RecyclerView.ViewHolder}.
+     * Placeholders are displayed instead of items dropped in windowed mode while their page is loading again.
+     * By default progress ViewHolder is used. Note your ViewHolder must extend {@link StateHolder}.
+     * @param parent Parent view for item. See {@link RecyclerView.Adapter#onCreateViewHolder(ViewGroup, int)}
+     * @return ViewHolder to display instead of dropped item.
+     */
+    protected StateHolder createPlaceholderViewHolder(@NonNull ViewGroup parent) {
+        return createStateProgressViewHolder(parent);
+    }
+
     /**
      * Sets a new page to adapter.
      * Note it is client responsibility to set new page with the same size as it was
      * configured on {@link PaginationAdapter} initialization.
      * Adapter support auto detect limit it means that if new page size less than initial page size
      * adapter stops trying to request for new data.
+     * Page is matched with the earliest request that is still loading. When several requests are in flight
+     * and may complete in any order use {@link #setData(int, List)} instead.
+     * Page that adapter did not request (for example the first one loaded by client) is accepted only until
+     * the first {@link #reset()}, after it the first page is requested with {@link #loadFirstPage()}.
+     * Late page of request cancelled by reset can not be told apart from the page of a new request,
+     * with {@link #setData(PageRequest, List)} every result is matched with its request.
      * @param newData Items list for new page
      */
     public void setData(@NonNull List<E> newData) {
-        currentSate = PageState.LOADED;
-        // Remove footer
-        notifyItemRemoved(data.size());
+        if (postFromBackground(() -> setData(newData))) {
+            return;
+        }
+        PageRequest request = requests.oldestLoading();
+        if (request == null) {
+            if (resets > 0) {
+                // Nobody asked for this page, it may be requested before reset()
+                return;
+            }
+            // Page was loaded without request, for example the first one
+            request = enqueue(requests.nextAppendDistance(engine.getNextDistance(), pageSize), PageRequest.Type.APPEND);
+        }
+        complete(request, newData);
+    }
 
-        int start = data.size();
-        data.addAll(newData);
+    /**
+     * Sets a page requested with given distance.
+     * Pages can be set in any order, adapter adds them to the list in order of their distance.
+     * In windowed mode the page that was dropped and requested again is restored in place.
+     * Page that adapter does not wait for anymore is ignored. Late page of request cancelled by {@link #reset()}
+     * is dropped even if the same distance is requested again: results for the same distance are matched
+     * with cancelled requests first, in order of requests. So client that stops loading cancelled request
+     * should tell it with {@link PageRequest#setOnCancelListener(PageRequest.OnCancelListener)}.
+     * @param distance Distance (offset) of the page, the same as in {@link LoadNextPartCallback#loadNextPage(int, int)}.
+     *                 For page numbers it is {@code (page - 1) * pageSize}.
+     * @param newData Items list for the page
+     */
+    public void setData(int distance, @NonNull List<E> newData) {
+        if (postFromBackground(() -> setData(distance, newData))) {
+            return;
+        }
+        if (requests.dropCancelledResult(distance)) {
+            return;
+        }
+        PageRequest request = requests.find(distance);
+        if (request == null) {
+            return;
+        }
+        complete(request, newData);
+    }
 
-        incrementPage();
-        detectLimit(newData);
+    /**
+     * Sets a page loaded by key, see {@link LoadNextKeyCallback}.
+     * Page is matched with the earliest request that is still loading, like in {@link #setData(List)}.
+     * @param result Items of the page, key of the next page and whether there are more pages.
+     */
+    public void setData(@NonNull PageResult<E, ?> result) {
+        if (postFromBackground(() -> setData(result))) {
+            return;
+        }
+        PageRequest request = requests.oldestLoading();
+        if (request == null) {
+            if (resets > 0) {
+                return;
+            }
+            // Page was loaded without request, for example the first one
+            request = enqueue(requests.nextAppendDistance(engine.getNextDistance(), pageSize), PageRequest.Type.APPEND);
+            request.setKey(nextKey);
+        }
+        completeKeyed(request, result);
+    }
 
-        notifyItemRangeInserted(start, newData.size());
+    /**
+     * Sets a page loaded by key for given request.
+     * Result of cancelled request or request from previous generation is dropped.
+     * @param request Request handle received in {@link LoadNextKeyCallback}.
+     * @param result Items of the page, key of the next page and whether there are more pages.
+     */
+    public void setData(@NonNull PageRequest request, @NonNull PageResult<E, ?> result) {
+        if (postFromBackground(() -> setData(request, result))) {
+            return;
+        }
+        if (isStaleResult(request)) {
+            return;
+        }
+        completeKeyed(request, result);
     }
 
     /**
      * Inserts new item to specified position.
-     * Insertion will drop the last list item, it means that dropped item should be first
+     * Adapter expects that item was inserted on the server as well, so the next page is requested
+     * with offset shifted by one item. With {@link LoadNextPageCallback} page borders can not shift,
+     * so insertion will drop the last list item, it means that dropped item should be first
      * in new requested page.
      * @param item Item to insert.
      * @param position Item position in paged list.
@@ -174,40 +568,196 @@ public abstract class PaginationAdapter<E> extends RecyclerView.Adapter<Recycler
             throw new IllegalArgumentException("Position must be from 0 to list size");
         }
 
+        modCount++;
         data.add(position, item);
-        notifyItemInserted(position);
+        updates.onInserted(position, 1);
+        positionIndex.insert(position, item);
+        invalidateShiftedPages(position);
+
+        if (engine.getFooterState() == PageState.REACHED_LIMIT) {
+            return;
+        }
+
+        if (usesKeys()) {
+            // Next page is requested by key, local changes do not move it
+            engine.shift(1);
+            return;
+        }
 
-        if (currentSate == PageState.REACHED_LIMIT) {
+        if (!usesOffsets()) {
+            data.remove(data.size() - 1);
+            updates.onRemoved(data.size(), 1);
             return;
         }
 
-        data.remove(data.size() - 1);
-        notifyItemRemoved(data.size());
+        engine.shift(1);
+        reissueRequests();
     }
 
     /**
      * Sets a error to adapter.
      * It will show error footer with error message. See {@link #createStateErrorViewHolder(ViewGroup)} to customize error message.
      * To leave error state client should call {@link #retry()}.
+     * Error is matched with the earliest request that is still loading, see {@link #setError(int)}.
      */
     public void setError() {
-        currentSate = PageState.ERROR;
-        // Notify for footer
-        notifyItemChanged(data.size());
+        if (postFromBackground(() -> setError())) {
+            return;
+        }
+        PageRequest request = requests.oldestLoading();
+        if (request == null) {
+            if (resets > 0) {
+                return;
+            }
+            request = enqueue(requests.nextAppendDistance(engine.getNextDistance(), pageSize), PageRequest.Type.APPEND);
+        }
+        fail(request);
+    }
+
+    /**
+     * Sets a page for given request.
+     * Result of cancelled request or request from previous generation is dropped.
+     * @param request Request handle received in load callback.
+     * @param newData Items list for the page
+     */
+    public void setData(@NonNull PageRequest request, @NonNull List<E> newData) {
+        if (postFromBackground(() -> setData(request, newData))) {
+            return;
+        }
+        if (isStaleResult(request)) {
+            return;
+        }
+        complete(request, newData);
+    }
+
+    /**
+     * Sets a page for given request together with its version, for example ETag of the response.
+     * When the page is loaded again by {@link #refresh()} with the same version it is not compared
+     * item by item and not rebound.
+     * @param request Request handle received in load callback.
+     * @param newData Items list for the page
+     * @param version Version of the page.
+     */
+    public void setData(@NonNull PageRequest request, @NonNull List<E> newData, @NonNull Object version) {
+        if (postFromBackground(() -> setData(request, newData, version))) {
+            return;
+        }
+        if (isStaleResult(request)) {
+            return;
+        }
+        request.setVersion(version);
+        complete(request, newData);
+    }
+
+    /**
+     * Reloads pages around visible items while the list stays on screen. Pages that changed are replaced
+     * like with {@link #submitPage(int, List)}, unchanged pages (the same version or the same items)
+     * are not touched. Pages after refreshed ones are removed and loaded again when user scrolls to them,
+     * pages before refreshed ones are reloaded when they become visible. All outstanding requests are cancelled.
+     * Unlike {@link #reset()} holders are not rebound and scroll position is kept.
+     * List that is empty or not laid out yet is reset and its first page is requested.
+     */
+    public void refresh() {
+        if (data.isEmpty() || lastVisiblePosition == RecyclerView.NO_POSITION) {
+            reset();
+            loadFirstPage();
+            return;
+        }
+
+        modCount++;
+        cancelRequests();
+        updateState(false);
+
+        int lastPage = pageCount() - 1;
+        int from = Math.max(0, pageOf(Math.max(firstVisiblePosition, 0)) - 1);
+        int to = Math.min(lastPage, pageOf(lastVisiblePosition) + 1);
+
+        if (!totalCountKnown) {
+            int trimFrom = (to + 1) * pageSize;
+            if (trimFrom < data.size() && (!usesKeys() || pageKeys.containsKey(to + 1))) {
+                if (usesKeys()) {
+                    nextKey = pageKeys.get(to + 1);
+                }
+                int count = data.size() - trimFrom;
+                data.subList(trimFrom, data.size()).clear();
+                positionIndex.invalidate();
+                loadedPages.clear(to + 1, Integer.MAX_VALUE);
+                updates.onRemoved(trimFrom, count);
+                engine.setItemCount(data.size());
+            }
+            // Refreshed data may have more pages than before
+            engine.restore(engine.getDistance(), PageState.LOADED);
+        }
+
+        stalePages.clear();
+        stalePages.set(0, from);
+        for (int page = from; page <= to; page++) {
+            revalidatePage(page);
+        }
+    }
+
+    /**
+     * Sets a error for given request.
+     * Error of cancelled request or request from previous generation is dropped.
+     * @param request Request handle received in load callback.
+     */
+    public void setError(@NonNull PageRequest request) {
+        if (postFromBackground(() -> setError(request))) {
+            return;
+        }
+        if (isStaleResult(request)) {
+            return;
+        }
+        fail(request);
+    }
+
+    /**
+     * Sets a error for the page requested with given distance.
+     * Error footer is shown when it is turn of this page to be added to the list.
+     * Late error of cancelled request is dropped like late page, see {@link #setData(int, List)}.
+     * @param distance Distance (offset) of the page, the same as in {@link LoadNextPartCallback#loadNextPage(int, int)}.
+     */
+    public void setError(int distance) {
+        if (postFromBackground(() -> setError(distance))) {
+            return;
+        }
+        if (requests.dropCancelledResult(distance)) {
+            return;
+        }
+        PageRequest request = requests.find(distance);
+        if (request == null) {
+            return;
+        }
+        fail(request);
     }
 
     /**
-     * Tries to leave error state and requests data one more time.
+     * Tries to leave error state and requests all failed pages one more time.
      */
     public void retry() {
-        if (currentSate == PageState.ERROR) {
-            loadMore();
+        List<PageRequest> failed = requests.failed();
+        if (failed.isEmpty()) {
+            return;
+        }
+
+        if (metricsListener != null) {
+            metricsListener.onRetry(failed.size());
+        }
+        for (PageRequest request : failed) {
+            request.setState(PageState.LOADING);
+            request.resetFailures();
+        }
+        updateState(false);
+        for (PageRequest request : failed) {
+            requestPage(request);
         }
     }
 
     /**
      * Removes item from paged list by position.
-     * After item removing the last page of paged will be deleted and
+     * Adapter expects that item was removed on the server as well, so the next page is requested
+     * with offset shifted by one item and nothing is requested again. With {@link LoadNextPageCallback}
+     * page borders can not shift, so after item removing the last page of paged will be deleted and
      * adapter will request last page ones again.
      * @param position Position of item to remove.
      */
@@ -215,180 +765,1696 @@ public abstract class PaginationAdapter<E> extends RecyclerView.Adapter<Recycler
         if (data.isEmpty()) {
             return;
         }
-        if (position < 0 || position > data.size()) {
+        if (position < 0 || position >= data.size()) {
             throw new IllegalArgumentException("Position must be from 0 to list size");
         }
 
+        modCount++;
+        positionIndex.remove(position, data.get(position));
         data.remove(position);
-        notifyItemRemoved(position);
+        updates.onRemoved(position, 1);
+        invalidateShiftedPages(position);
+
+        if (engine.getFooterState() == PageState.REACHED_LIMIT) {
+            return;
+        }
+
+        if (usesKeys()) {
+            engine.shift(-1);
+            return;
+        }
 
-        if (currentSate == PageState.REACHED_LIMIT) {
+        if (usesOffsets()) {
+            engine.shift(-1);
+            reissueRequests();
             return;
         }
 
         int removeFrom = data.size() - pageSize + 1;
         for (int i = data.size() - 1, j = 0; j < pageSize - 1; i--, j++) {
+            positionIndex.remove(i, data.get(i));
             data.remove(i);
         }
-        notifyItemRangeRemoved(removeFrom, pageSize - 1);
+        updates.onRemoved(removeFrom, pageSize - 1);
+        loadedPages.clear(pageCount(), Integer.MAX_VALUE);
 
-        decrementPage();
+        // Pages after the dropped one are requested again with new offsets
+        cancelRequests();
+        engine.onPageDropped();
         loadMore();
     }
 
     /**
-     * Removes item from paged list
-     * After item removing the last page of paged will be deleted and
-     * adapter will request last page ones again.
+     * Removes item from paged list. See {@link #remove(int)}.
+     * Position of item is found with index, so removal does not scan the whole list.
      * @param item Item to remove.
      */
     public void remove(@NonNull E item) {
-        int indx = data.indexOf(item);
+        int indx = positionIndex.positionOf(item, data);
         if (data.isEmpty() || indx == -1) {
             return;
         }
         remove(indx);
     }
 
+    /**
+     * Switches adapter to total count mode, call it when source reports total number of items.
+     * List is padded with placeholders up to total count, so scrollbar and fast scroll cover the whole
+     * result set. Nothing is appended anymore: binding a placeholder requests its page directly by
+     * offset or page number, so jump to any position costs one request. For big totals pass
+     * {@link SparseItemList} to constructor, it does not allocate memory for placeholders.
+     * Incomplete last page and pages that are requested at the moment are requested again when bound.
+     * Mode lasts until {@link #reset()}.
+     * @param totalCount Total number of items.
+     * @throws IllegalArgumentException If (totalCount < 0)
+     * @throws IllegalStateException If pages are loaded by key, they can not be requested out of order.
+     */
+    public void setTotalCount(int totalCount) {
+        if (postFromBackground(() -> setTotalCount(totalCount))) {
+            return;
+        }
+        if (totalCount < 0) {
+            throw new IllegalArgumentException("Total count must not be negative");
+        }
+        if (usesKeys()) {
+            throw new IllegalStateException("Pages loaded by key can not be requested by position");
+        }
+
+        modCount++;
+        int loaded = data.size();
+        if (!isWindowed()) {
+            loadedPages.set(0, loaded / pageSize);
+        }
+        if (loaded % pageSize != 0) {
+            loadedPages.clear(loaded / pageSize);
+        }
+        totalCountKnown = true;
+        requests.cancelAppends();
+        updateState(true);
+
+        if (totalCount > loaded) {
+            data.addAll(Collections.<E>nCopies(totalCount - loaded, null));
+            updates.onInserted(loaded, totalCount - loaded);
+        } else if (totalCount < loaded) {
+            for (int i = loaded - 1; i >= totalCount; i--) {
+                positionIndex.remove(i, data.get(i));
+                data.remove(i);
+            }
+            updates.onRemoved(totalCount, loaded - totalCount);
+            loadedPages.clear(pageCount(), Integer.MAX_VALUE);
+        }
+        engine.setItemCount(data.size());
+    }
+
+    /**
+     * Saves loaded items, position of the next page, footer state and scroll position,
+     * so {@link #restoreState(Bundle, PageSerializer)} brings the list back without any requests.
+     * Call it from {@code onSaveInstanceState()}. State too big for a Bundle is written to a file
+     * in spill directory and Bundle keeps the file path. Items of pages that are requested at the moment
+     * are not saved, they are requested again after restore. Key of the next page in key mode is saved
+     * if it is a {@link String}, {@link Long} or {@link Integer}, otherwise state is not saved.
+     * @param outState Bundle to save to, every adapter needs its own one.
+     * @param serializer Serializer for items.
+     * @param spillDirectory Directory for big states, for example {@link android.content.Context#getCacheDir()}.
+     */
+    public void saveState(@NonNull Bundle outState, @NonNull PageSerializer<E> serializer, @NonNull File spillDirectory) {
+        PagingSavedState<E> state = new PagingSavedState<>();
+        state.pageSize = pageSize;
+        state.items = data;
+        // Streamed items of the next page are already in the list
+        PageRequest head = requests.headAppend();
+        state.distance = engine.getDistance() + (head == null ? 0 : head.getShownCount());
+        state.footerState = engine.getFooterState();
+        state.nextKey = nextKey;
+        state.totalCountKnown = totalCountKnown;
+        saveAnchor(state);
+
+        byte[] bytes;
+        try {
+            bytes = state.write(serializer);
+        } catch (IOException e) {
+            // Nothing is saved, restored adapter loads from the first page
+            return;
+        }
+        // Only the last saved state is restored, so the file of the previous one is not needed
+        deleteSpillFile();
+        if (bytes.length <= MAX_BUNDLE_STATE_BYTES) {
+            outState.putByteArray(STATE_KEY, bytes);
+            return;
+        }
+
+        if (!spillDirectory.exists() && !spillDirectory.mkdirs()) {
+            return;
+        }
+        File file = new File(spillDirectory, "paginationadapter-" + UUID.randomUUID() + ".state");
+        try (FileOutputStream out = new FileOutputStream(file)) {
+            out.write(bytes);
+            outState.putString(STATE_FILE_KEY, file.getPath());
+            spillFile = file;
+        } catch (IOException e) {
+            //noinspection ResultOfMethodCallIgnored
+            file.delete();
+        }
+    }
+
+    private void deleteSpillFile() {
+        if (spillFile != null) {
+            //noinspection ResultOfMethodCallIgnored
+            spillFile.delete();
+            spillFile = null;
+        }
+    }
+
+    /**
+     * Restores state saved with {@link #saveState(Bundle, PageSerializer, File)}. Loading continues from
+     * the next page after restored ones, scroll position is applied when adapter is attached.
+     * Call it before setting adapter to {@link RecyclerView}, adapter must be empty.
+     * @param savedState Bundle passed to {@code saveState()} or null.
+     * @param serializer Serializer the state was saved with.
+     * @return True if state was restored, false if there was no state, it could not be read
+     * or was saved with another page size.
+     */
+    public boolean restoreState(@Nullable Bundle savedState, @NonNull PageSerializer<E> serializer) {
+        if (savedState == null || !data.isEmpty()) {
+            return false;
+        }
+
+        byte[] bytes = savedState.getByteArray(STATE_KEY);
+        String path = savedState.getString(STATE_FILE_KEY);
+        PagingSavedState<E> state;
+        try {
+            if (bytes == null && path != null) {
+                bytes = readFile(new File(path));
+            }
+            if (bytes == null) {
+                return false;
+            }
+            state = PagingSavedState.read(serializer, bytes);
+        } catch (IOException e) {
+            return false;
+        } finally {
+            if (path != null) {
+                //noinspection ResultOfMethodCallIgnored
+                new File(path).delete();
+            }
+        }
+        // Placeholders need windowed or total count mode and in key mode also keys of dropped pages,
+        // that are not saved
+        boolean placeholders = isWindowed() || state.totalCountKnown;
+        if (state.pageSize != pageSize || ((!placeholders || usesKeys()) && state.items.contains(null))) {
+            return false;
+        }
+
+        modCount++;
+        cancelRequests();
+        data.addAll(state.items);
+        positionIndex.invalidate();
+        totalCountKnown = state.totalCountKnown;
+        if (hasPlaceholders()) {
+            for (int page = 0; page < pageCount(); page++) {
+                if (data.get(page * pageSize) != null) {
+                    loadedPages.set(page);
+                }
+            }
+        }
+        nextKey = state.nextKey;
+        engine.restore(state.distance,
+                state.footerState == PageState.REACHED_LIMIT ? PageState.REACHED_LIMIT : PageState.LOADED);
+        updates.onInserted(0, data.size());
+        if (state.footerState == PageState.ERROR) {
+            // Error footer comes back and waits for retry()
+            enqueue(engine.getNextDistance(), PageRequest.Type.APPEND).setState(PageState.ERROR);
+            updateState(false);
+        }
+        prepare(data);
+        firstPageStart = 0;
+
+        pendingAnchorPosition = state.anchorPosition;
+        pendingAnchorOffset = state.anchorOffset;
+        if (recyclerView != null) {
+            applyAnchor(recyclerView.getLayoutManager());
+        }
+        return true;
+    }
+
     /**
      * Resets adapter to its initial state and clears all data.
-     * No matter what previous state was, adapter will wait for first page.
-     * The next page that will be set through {@link #setData(List)} will be first page.
+     * All outstanding requests are cancelled, their results set with request handle or distance are dropped.
+     * Nothing is requested by reset itself, request the first page with {@link #loadFirstPage()}.
+     * After reset pages that were not requested by adapter are dropped, so the first page loaded by client
+     * and set with {@link #setData(List)} is not accepted anymore.
      */
     public void reset() {
-        PageState prev = currentSate;
-        currentSate = PageState.LOADED;
+        modCount++;
+        resets++;
+        cancelRequests();
+        deleteSpillFile();
+        boolean hadFooter = engine.hasFooter();
+        engine.reset();
 
         int size = data.size();
-        if (prev == PageState.LOADING || prev == PageState.ERROR) {
+        if (hadFooter) {
             // Remove footer
-            notifyItemRemoved(size);
+            updates.onRemoved(size, 1);
         }
 
         data.clear();
-        notifyItemRangeRemoved(0, size);
+        updates.onRemoved(0, size);
+
+        loadedPages.clear();
+        positionIndex.invalidate();
+        nextKey = null;
+        pageKeys.clear();
+        totalCountKnown = false;
+        pageVersions.clear();
+        stalePages.clear();
+        preparedItems.clear();
+        firstPageStart = 0;
+        itemPrefetches.reset();
+    }
 
-        distance = 0 - pageSize;
-        currentPage = distance / pageSize + 1;
+    /**
+     * Requests the first page through load callback or page source. Call it when adapter is set up
+     * and after {@link #reset()}. Does nothing if list is not empty or pages are already requested.
+     */
+    public void loadFirstPage() {
+        if (!data.isEmpty() || requests.size() > 0) {
+            return;
+        }
+        loadMore();
     }
 
     /**
      * Updates item on given position.
      * @param item New item.
      * @param position Item position to update.
+     * @throws IllegalArgumentException If (position < 0) or (position >= data size)
      */
     public void update(E item, int position) {
-        if (position < 0 || position > data.size()) {
-            throw new IllegalArgumentException("Position must be from 0 to list size");
+        if (position < 0 || position >= data.size()) {
+            throw new IllegalArgumentException("Position must be from 0 to list size exclusive");
         }
 
+        modCount++;
+        // Item may be changed in place, so prepared data of the same instance is not valid either
+        preparedItems.remove(data.get(position));
+        positionIndex.replace(position, data.get(position), item);
         data.set(position, item);
-        notifyItemChanged(position);
+        prepare(Collections.singletonList(item));
+        updates.onChanged(position, 1, null);
+        // Resources of the old item are not needed, new one is handed to prefetcher if it is close
+        itemPrefetches.invalidate(position, position + 1);
+        itemPrefetches.schedule(data);
     }
 
     /**
-     * Sets callback for requesting data by distance (offset) and page size (count).
-     * @param loadNextPartCallback Callback to set.
+     * Starts batch of changes. Notifications of all changes made until {@link #commit()} are collected,
+     * adjacent ranges are merged and dispatched at once on commit, so the batch costs one layout pass.
+     * Batches can be nested, notifications are dispatched when the outermost batch is committed.
+     * Batch must be committed before control returns to the main looper.
      */
-    public void setLoadNextPartCallback(LoadNextPartCallback loadNextPartCallback) {
-        this.loadNextPartCallback = loadNextPartCallback;
+    public void beginBatch() {
+        updates.begin();
     }
 
     /**
-     * Sets callback for requesting data by page number.
-     * @param loadNextPageCallback Callback to set.
+     * Commits batch started with {@link #beginBatch()}.
+     * @throws IllegalStateException If there is no batch to commit.
      */
-    public void setLoadNextPageCallback(LoadNextPageCallback loadNextPageCallback) {
-        this.loadNextPageCallback = loadNextPageCallback;
+    public void commit() {
+        updates.commit();
     }
 
     /**
-     * Callback for requesting data by distance (offset) and page size (count).
+     * Applies changes as one batch. See {@link #beginBatch()}.
+     * @param changes Changes to apply, for example several calls of {@link #insert(Object, int)} and {@link #remove(int)}.
      */
-    public interface LoadNextPartCallback {
+    public void edit(@NonNull Runnable changes) {
+        beginBatch();
+        try {
+            changes.run();
+        } finally {
+            commit();
+        }
+    }
 
-        /**
-         * Called when adapter wants to load one more page.
-         * @param distance Offset in current list.
-         * @param pageSize Page size.
-         */
-        void loadNextPage(int distance, int pageSize);
+    /**
+     * Replaces the whole list with newer snapshot, for example after refresh from server.
+     * Differences are calculated in background with callback set in {@link #setDiffCallback(DiffUtil.ItemCallback)},
+     * then only changed items are notified. Submission that was not applied yet is discarded
+     * when newer one arrives. Next page will be requested right after the last submitted item,
+     * pages that are requested when submission is applied are requested again from there.
+     * @param newData New list content.
+     */
+    public void submitList(@NonNull List<E> newData) {
+        prepare(newData);
+        listGeneration++;
+        pageGenerations.clear();
+        submit(NO_PAGE, 0, new ArrayList<>(newData), listGeneration, 0);
     }
 
     /**
-     * Callback for requesting data by page number.
+     * Replaces already loaded page with newer snapshot.
+     * Differences are calculated in background with callback set in {@link #setDiffCallback(DiffUtil.ItemCallback)},
+     * then only changed items are notified. Submission that was not applied yet is discarded
+     * when newer one for the same page or the whole list arrives.
+     * Note new page should have the same size as loaded one, otherwise page borders of the next pages will shift
+     * and outstanding requests are issued again with shifted offsets.
+     * @param page Page number, the same as in {@link LoadNextPageCallback#loadNextPage(int)}.
+     * @param newData New page content.
+     * @throws IllegalArgumentException If page was not loaded yet.
      */
-    public interface LoadNextPageCallback {
+    public void submitPage(int page, @NonNull List<E> newData) {
+        if (page < 1 || (page - 1) * pageSize >= data.size()) {
+            throw new IllegalArgumentException("Page must be from 1 to loaded pages count");
+        }
 
-        /**
-         * Called when adapter wants to load one more page.
-         * @param page Page number.
-         */
-        void loadNextPage(int page);
+        submitAt(page, (page - 1) * pageSize, newData);
     }
 
-    private void incrementPage() {
-        distance += pageSize;
-        calculateCurrentPage();
+    /**
+     * Submits new items of the page that starts at given position, which is not page aligned
+     * when offsets were shifted by pages of other size.
+     */
+    private void submitAt(int page, int start, List<E> newData) {
+        prepare(newData);
+        pageGeneration++;
+        pageGenerations.put(page, pageGeneration);
+        submit(page, start, new ArrayList<>(newData), listGeneration, pageGeneration);
     }
 
-    private void decrementPage() {
-        distance -= pageSize;
-        calculateCurrentPage();
+    /**
+     * Sets listener of paging metrics: page latency, time to the first page, footer stalls, retries,
+     * bind time and notifications.
+     * @param metricsListener Listener to set or null to stop reporting.
+     */
+    public void setMetricsListener(@Nullable PagingMetricsListener metricsListener) {
+        this.metricsListener = metricsListener;
     }
 
-    private void calculateCurrentPage() {
-        currentPage = distance / pageSize + 1;
+    /**
+     * Enables {@link Trace} sections for binding items and adding pages, so they can be seen in systrace.
+     * Sections are emitted on API 18 and higher. Disabled by default.
+     * @param traceEnabled True to emit sections.
+     */
+    public void setTraceEnabled(boolean traceEnabled) {
+        this.traceEnabled = traceEnabled;
     }
 
-    private void detectLimit(List<E> newData) {
-        if (data.size() >= dataLimit || newData.size() < pageSize) {
-            currentSate = PageState.REACHED_LIMIT;
+    /**
+     * Sets preparer that is run in background for items of every arrived page and submitted snapshot,
+     * so binding only assigns prepared data. Item that is bound before its preparation is done
+     * is prepared on the main thread. Prepared data is given to holders that extend {@link PreparedItemHolder}.
+     * @param itemPreparer Preparer to set or null to disable preparation.
+     */
+    public void setItemPreparer(@Nullable ItemPreparer<E, ?> itemPreparer) {
+        this.itemPreparer = itemPreparer;
+        preparedItems.clear();
+    }
+
+    /**
+     * Sets prefetcher that warms resources of items (images, nested data) before they are bound.
+     * Items ahead of visible range in the direction of scrolling are handed to it as soon as they are loaded,
+     * see {@link PagingConfig.Builder#setItemPrefetchDistance(int)} and
+     * {@link PagingConfig.Builder#setMaxConcurrentItemPrefetches(int)}.
+     * @param itemPrefetcher Prefetcher to set or null to disable prefetch. Prefetches of previous one are cancelled.
+     */
+    public void setItemPrefetcher(@Nullable ItemPrefetcher<E> itemPrefetcher) {
+        itemPrefetches.setPrefetcher(itemPrefetcher);
+    }
+
+    /**
+     * Creates holders configured with {@link PagingConfig.Builder#setPrewarmItemHolders(int)} on inflation thread
+     * and puts them to the pool of RecyclerView one by one on the main thread.
+     */
+    private void prewarmHolders(@NonNull final RecyclerView recyclerView) {
+        final RecyclerView.RecycledViewPool pool = recyclerView.getRecycledViewPool();
+        final int attach = attachCount;
+
+        final int[] viewTypes;
+        final int[] counts;
+        if (itemViewTypes.isEmpty()) {
+            viewTypes = new int[] {itemViewType, footerProgressViewType, footerErrorViewType};
+            counts = new int[] {prewarmItemHolders, prewarmStateHolders, prewarmStateHolders};
+            pool.setMaxRecycledViews(itemViewType, Math.max(prewarmItemHolders, ItemViewType.DEFAULT_MAX_RECYCLED_VIEWS));
+        } else {
+            int typeCount = itemViewTypes.size();
+            viewTypes = Arrays.copyOf(itemViewTypeIds, typeCount + 2);
+            counts = new int[typeCount + 2];
+            for (int i = 0; i < typeCount; i++) {
+                counts[i] = prewarmItemHolders;
+                pool.setMaxRecycledViews(viewTypes[i], Math.max(prewarmItemHolders, itemViewTypes.get(i).getMaxRecycledViews()));
+            }
+            viewTypes[typeCount] = footerProgressViewType;
+            viewTypes[typeCount + 1] = footerErrorViewType;
+            counts[typeCount] = prewarmStateHolders;
+            counts[typeCount + 1] = prewarmStateHolders;
+        }
+
+        // Views are inflated off the main thread, so they get detached parent instead of RecyclerView.
+        // RecyclerView replaces layout params of such views when it binds them.
+        final ViewGroup parent = new FrameLayout(recyclerView.getContext());
+        PagingExecutors.inflation().execute(() -> {
+            for (int i = 0; i < viewTypes.length; i++) {
+                for (int j = 0; j < counts[i]; j++) {
+                    final RecyclerView.ViewHolder holder;
+                    try {
+                        // Sets view type of holder, so pool accepts it
+                        holder = createViewHolder(parent, viewTypes[i]);
+                    } catch (RuntimeException e) {
+                        // Factory that can not work off the main thread creates holders when they are needed
+                        break;
+                    }
+                    mainThreadExecutor.execute(() -> {
+                        if (attach == attachCount) {
+                            pool.putRecycledView(holder);
+                        }
+                    });
+                }
+            }
+        });
+    }
+
+    /**
+     * Sets key provider and enables stable ids, so {@link RecyclerView} reuses bound holders
+     * across changes. Keys are also used to find items in {@link #remove(Object)} and to tell
+     * whether submitted items are the same when no diff callback is set.
+     * Note stable ids can not be switched while adapter is set to {@link RecyclerView},
+     * so set provider before {@link RecyclerView#setAdapter(RecyclerView.Adapter)}.
+     * @param keyProvider Provider to set or null to disable stable ids.
+     */
+    public void setItemKeyProvider(ItemKeyProvider<E> keyProvider) {
+        this.keyProvider = keyProvider;
+        positionIndex.setKeyProvider(keyProvider);
+        setHasStableIds(keyProvider != null);
+    }
+
+    /**
+     * Sets callback that tells how to compare items of submitted snapshots.
+     * By default items are compared with {@link Object#equals(Object)}, or with keys if
+     * {@link ItemKeyProvider} is set.
+     * @param diffCallback Callback to set.
+     */
+    public void setDiffCallback(@NonNull DiffUtil.ItemCallback<E> diffCallback) {
+        this.diffCallback = diffCallback;
+    }
+
+    /**
+     * Drops pages outside of visible range when system is running low on memory.
+     * Adapter in windowed mode receives this call automatically while attached to {@link RecyclerView},
+     * client can also forward {@link ComponentCallbacks2#onTrimMemory(int)} here by itself.
+     * @param level Memory trim level. See {@link ComponentCallbacks2}.
+     */
+    public void onTrimMemory(int level) {
+        if (!isWindowed()) {
+            return;
+        }
+
+        if (level >= ComponentCallbacks2.TRIM_MEMORY_RUNNING_CRITICAL) {
+            // Keep only visible pages
+            trimWindow(1);
+        } else if (level >= ComponentCallbacks2.TRIM_MEMORY_RUNNING_LOW) {
+            trimWindow(Math.max(1, windowSize / 2));
+        }
+    }
+
+    /**
+     * Sets policy that decides when to request next page.
+     * By default {@link StaticPrefetchPolicy} with threshold from {@link PagingConfig} is used.
+     * @param prefetchPolicy Policy to set.
+     */
+    public void setPrefetchPolicy(@NonNull PrefetchPolicy prefetchPolicy) {
+        this.prefetchPolicy = prefetchPolicy;
+    }
+
+    /**
+     * Sets cache that is checked before load callbacks are called.
+     * With cache adapter attached with empty list requests the first page by itself. Pages from memory are set
+     * synchronously, so the first page from cache is shown without waiting for a request.
+     * Pages from disk are read in background.
+     * Stale pages are shown and requested again, newer version replaces them with {@link #submitPage(int, List)}.
+     * @param pageCache Cache to set or null to disable caching.
+     */
+    public void setPageCache(PageCache<E> pageCache) {
+        this.pageCache = pageCache;
+    }
+
+    /**
+     * Sets callback for requesting data by distance (offset) and page size (count).
+     * @param loadNextPartCallback Callback to set.
+     */
+    public void setLoadNextPartCallback(LoadNextPartCallback loadNextPartCallback) {
+        this.loadNextPartCallback = loadNextPartCallback;
+    }
+
+    /**
+     * Sets callback for requesting data by page number.
+     * @param loadNextPageCallback Callback to set.
+     */
+    public void setLoadNextPageCallback(LoadNextPageCallback loadNextPageCallback) {
+        this.loadNextPageCallback = loadNextPageCallback;
+    }
+
+    /**
+     * Sets source that streams pages on demand, it is used instead of load callbacks.
+     * Adapter subscribes to the next page when user scrolls close to the end and shows items of the page
+     * as source emits them. Subscriptions are cancelled on {@link #reset()} and when adapter is detached.
+     * @param pageSource Source to set or null to use load callbacks.
+     */
+    public void setPageSource(@Nullable PageSource<E> pageSource) {
+        this.pageSource = pageSource;
+    }
+
+    /**
+     * Sets callback for requesting data by key (cursor) of the page. Key of the next page and the end of data
+     * come with {@link PageResult}, so pages are requested one after another, and local
+     * {@link #insert(Object, int)} and {@link #remove(int)} do not affect them. Page cache is not used in this mode.
+     * @param loadNextKeyCallback Callback to set.
+     * @param <K> Key class.
+     */
+    @SuppressWarnings("unchecked")
+    public <K> void setLoadNextKeyCallback(@Nullable LoadNextKeyCallback<K> loadNextKeyCallback) {
+        this.loadNextKeyCallback = (LoadNextKeyCallback<Object>) loadNextKeyCallback;
+    }
+
+    /**
+     * Callback for requesting data by distance (offset) and page size (count).
+     */
+    public interface LoadNextPartCallback {
+
+        /**
+         * Called when adapter wants to load one more page.
+         * @param distance Offset in current list.
+         * @param pageSize Page size.
+         */
+        void loadNextPage(int distance, int pageSize);
+
+        /**
+         * Called when adapter wants to load one more page.
+         * Override it to receive request handle, by default it calls {@link #loadNextPage(int, int)}.
+         * @param distance Offset in current list.
+         * @param pageSize Page size.
+         * @param request Request handle. Set result with {@link PaginationAdapter#setData(PageRequest, List)}
+         *                and stop loading when it gets cancelled.
+         */
+        default void loadNextPage(int distance, int pageSize, @NonNull PageRequest request) {
+            loadNextPage(distance, pageSize);
+        }
+    }
+
+    /**
+     * Callback for requesting data by page number.
+     */
+    public interface LoadNextPageCallback {
+
+        /**
+         * Called when adapter wants to load one more page.
+         * @param page Page number.
+         */
+        void loadNextPage(int page);
+
+        /**
+         * Called when adapter wants to load one more page.
+         * Override it to receive request handle, by default it calls {@link #loadNextPage(int)}.
+         * @param page Page number.
+         * @param request Request handle. Set result with {@link PaginationAdapter#setData(PageRequest, List)}
+         *                and stop loading when it gets cancelled.
+         */
+        default void loadNextPage(int page, @NonNull PageRequest request) {
+            loadNextPage(page);
+        }
+    }
+
+    /**
+     * Callback for requesting data by key (cursor) of the page.
+     * @param <K> Key class.
+     */
+    public interface LoadNextKeyCallback<K> {
+
+        /**
+         * Called when adapter wants to load one more page.
+         * @param key Key of the page from {@link PageResult#getNextKey()} of the previous page, null for the first page.
+         * @param pageSize Page size.
+         * @param request Request handle. Set result with {@link PaginationAdapter#setData(PageRequest, PageResult)}
+         *                and stop loading when it gets cancelled.
+         */
+        void loadNextPage(@Nullable K key, int pageSize, @NonNull PageRequest request);
+    }
+
+    private boolean usesKeys() {
+        return pageSource == null && loadNextKeyCallback != null;
+    }
+
+    /**
+     * Offsets can follow local insertions and removals, page numbers can not.
+     */
+    private boolean usesOffsets() {
+        return pageSource != null || loadNextPartCallback != null || loadNextPageCallback == null;
+    }
+
+    /**
+     * Outstanding requests were issued with offsets that are shifted now, so they are issued again.
+     */
+    private void reissueRequests() {
+        if (requests.size() == 0) {
+            return;
+        }
+
+        boolean hadAppends = requests.headAppend() != null;
+        cancelRequests();
+        if (hadAppends) {
+            loadMore();
+        } else {
+            updateState(false);
+        }
+    }
+
+    private PageRequest enqueue(int distance, PageRequest.Type type) {
+        return requests.enqueue(distance, pageSize, generation, type);
+    }
+
+    /**
+     * Queues result set off the main thread, it is applied at the next frame together with other queued results.
+     * Result set on the main thread is applied right away, but after results queued before it, so results
+     * are applied in order they were set no matter on which thread.
+     * @return True if result is queued, false if it is set on the main thread and should be applied now.
+     */
+    private boolean postFromBackground(Runnable result) {
+        if (threadCheck.isMainThread()) {
+            results.drain();
+            return false;
+        }
+        results.post(result);
+        return true;
+    }
+
+    /**
+     * Checks result set with request handle, result of cancelled request is not expected anymore.
+     */
+    private boolean isStaleResult(PageRequest request) {
+        if (!isStale(request)) {
+            return false;
+        }
+        requests.onCancelledResult(request);
+        return true;
+    }
+
+    private boolean isStale(PageRequest request) {
+        return request.isCancelled() || request.getGeneration() != generation || !requests.contains(request);
+    }
+
+    /**
+     * Runs item preparer for items that are not prepared yet in background.
+     */
+    private void prepare(List<E> items) {
+        final ItemPreparer<E, ?> preparer = itemPreparer;
+        if (preparer == null) {
+            return;
+        }
+
+        final List<E> pending = new ArrayList<>(items.size());
+        for (int i = 0; i < items.size(); i++) {
+            E item = items.get(i);
+            if (item != null && !preparedItems.containsKey(item)) {
+                pending.add(item);
+            }
+        }
+        if (pending.isEmpty()) {
+            return;
+        }
+
+        diffExecutor.execute(() -> {
+            final Object[] results = new Object[pending.size()];
+            for (int i = 0; i < results.length; i++) {
+                results[i] = preparer.prepare(pending.get(i));
+            }
+            mainThreadExecutor.execute(() -> {
+                if (preparer != itemPreparer) {
+                    return;
+                }
+                for (int i = 0; i < results.length; i++) {
+                    putPrepared(pending.get(i), results[i]);
+                }
+            });
+        });
+    }
+
+    private Object preparedFor(E item) {
+        Object prepared = preparedItems.get(item);
+        if (prepared == null && !preparedItems.containsKey(item)) {
+            // Bound before background preparation is done
+            prepared = itemPreparer.prepare(item);
+            putPrepared(item, prepared);
+        }
+        return prepared;
+    }
+
+    private void putPrepared(E item, Object prepared) {
+        preparedItems.put(item, prepared);
+        if (preparedItems.size() > 2 * (data.size() + maxConcurrentRequests * pageSize)) {
+            // Items removed from the list or prepared for pages and snapshots that were never shown
+            Set<E> shown = Collections.newSetFromMap(new IdentityHashMap<>());
+            for (int i = 0; i < data.size(); i++) {
+                shown.add(data.get(i));
+            }
+            preparedItems.keySet().retainAll(shown);
+        }
+    }
+
+    /**
+     * Starts new generation, results of all outstanding requests will be dropped.
+     */
+    private void cancelRequests() {
+        PageRequest head = requests.headAppend();
+        if (head != null && head.getShownCount() > 0) {
+            // Streamed items stay in the list, the next page starts right after them
+            engine.shift(head.getShownCount());
+        }
+        generation++;
+        requests.cancelAll();
+        // Reset, detach and applied submissions do not keep retries of cancelled requests on the main thread queue
+        cancelRetries();
+    }
+
+    private void complete(PageRequest request, List<E> newData) {
+        complete(request, newData, false);
+    }
+
+    private void completeKeyed(PageRequest request, PageResult<E, ?> result) {
+        request.setKeyedData(result.getItems(), result.getNextKey(), result.hasMore());
+        complete(request, result.getItems());
+    }
+
+    private void complete(PageRequest request, List<E> newData, boolean fromCache) {
+        beginTrace("PaginationAdapter#setData");
+        try {
+            completeTraced(request, newData, fromCache);
+        } finally {
+            endTrace();
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private void completeTraced(PageRequest request, List<E> newData, boolean fromCache) {
+        modCount++;
+        request.setAwaitingResult(false);
+        if (request.getType() != PageRequest.Type.REVALIDATE) {
+            // Revalidated page is prepared when submitted
+            prepare(newData);
+        }
+        if (request.getRequestTime() != 0 && metricsListener != null) {
+            metricsListener.onPageLoaded(request.getDistance(), SystemClock.uptimeMillis() - request.getRequestTime(), fromCache);
+        }
+        if (!fromCache) {
+            if (retryTracker != null) {
+                retryTracker.onSuccess();
+            }
+            if (request.getRequestTime() != 0) {
+                prefetchPolicy.onPageLoaded(SystemClock.uptimeMillis() - request.getRequestTime());
+            }
+            if (pageCache != null && !usesKeys()) {
+                // Keyed pages are not read from cache, so they are not written either
+                pageCache.put(request.getDistance(), pageSize, new ArrayList<>(newData));
+            }
+        }
+
+        if (request.getType() == PageRequest.Type.RESTORE) {
+            requests.remove(request);
+            restorePage(pageOf(request.getDistance()), newData);
+            return;
+        }
+        if (request.getType() == PageRequest.Type.REVALIDATE) {
+            requests.remove(request);
+            // Offset may be not page aligned after shift, so page is looked up by distance
+            int start = request.getDistance();
+            int page = pageOf(start);
+            if (start < data.size() && !isSamePage(page, start, newData, request.getVersion())) {
+                submitAt(page + 1, start, newData);
+            }
+            if (request.getVersion() != null) {
+                pageVersions.put(page, request.getVersion());
+            }
+            return;
+        }
+
+        request.setData(newData);
+
+        // Add all pages that are ready in order, later ones stay buffered
+        int start = data.size();
+        boolean limitReached = false;
+        PageRequest ready;
+        while (!limitReached && (ready = requests.pollReadyAppend()) != null) {
+            List<E> page = (List<E>) ready.getData();
+            int pageStart = data.size() - ready.getShownCount();
+            // Streamed items of the page are already in the list
+            for (int i = ready.getShownCount(); i < page.size(); i++) {
+                data.add(page.get(i));
+                positionIndex.append(page.get(i));
+            }
+            if (ready.getVersion() != null && pageStart % pageSize == 0) {
+                pageVersions.put(pageOf(pageStart), ready.getVersion());
+            }
+            if (ready.isKeyed()) {
+                if (pageStart % pageSize == 0) {
+                    pageKeys.put(pageOf(pageStart), ready.getKey());
+                }
+                nextKey = ready.getNextKey();
+                // Page may be shorter than page size, the next one starts right after it
+                engine.setItemCount(data.size());
+                limitReached = engine.isLimitReached(data.size(), ready.hasMore());
+            } else {
+                engine.onPageAdded();
+                limitReached = engine.isLimitReached(data.size(), page.size());
+            }
+        }
+        if (limitReached) {
+            requests.cancelAppends();
+        }
+
+        if (data.size() > start) {
+            updates.onInserted(start, data.size() - start);
+            onItemsShown(start);
+        }
+        updateState(limitReached);
+        if (!limitReached && requests.headAppend() != null) {
+            showStreamed(requests.headAppend());
+        }
+
+        if (isWindowed() && data.size() > start) {
+            loadedPages.set(pageOf(start), pageCount());
+            trimWindow(windowSize);
+        }
+    }
+
+    private void onItemsShown(int start) {
+        if (start == 0 && firstPageStart != 0) {
+            if (metricsListener != null) {
+                metricsListener.onFirstPageLoaded(SystemClock.uptimeMillis() - firstPageStart);
+            }
+            firstPageStart = 0;
+        }
+        itemPrefetches.schedule(data);
+    }
+
+    /**
+     * Adds items of the next page that page source already emitted, footer stays below them.
+     */
+    @SuppressWarnings("unchecked")
+    private void showStreamed(PageRequest request) {
+        List<E> streamed = (List<E>) (List<?>) request.getStreamedItems();
+        if (streamed == null || request.getShownCount() == streamed.size()) {
+            return;
+        }
+
+        modCount++;
+        int start = data.size();
+        List<E> added = streamed.subList(request.getShownCount(), streamed.size());
+        for (int i = 0; i < added.size(); i++) {
+            data.add(added.get(i));
+            positionIndex.append(added.get(i));
+        }
+        prepare(added);
+        request.setShownCount(streamed.size());
+        updates.onInserted(start, data.size() - start);
+        onItemsShown(start);
+    }
+
+    private void fail(PageRequest request) {
+        request.setAwaitingResult(false);
+        if (request.getRequestTime() != 0 && metricsListener != null) {
+            metricsListener.onPageFailed(request.getDistance(), SystemClock.uptimeMillis() - request.getRequestTime());
+        }
+        if (!request.isAppend()) {
+            // Placeholders or cached page stay on screen, page will be requested again later
+            requests.remove(request);
+            return;
+        }
+        if (retryTracker != null) {
+            long delay = retryTracker.onFailure(request.addFailure(), SystemClock.uptimeMillis());
+            if (delay != RetryTracker.GIVE_UP) {
+                // Progress footer stays until policy gives up
+                scheduleRetry(request, delay);
+                return;
+            }
+        }
+
+        request.setState(PageState.ERROR);
+        updateState(false);
+    }
+
+    private void scheduleRetry(final PageRequest request, long delayMillis) {
+        final int failures = request.getFailures();
+        Runnable retry = new Runnable() {
+            @Override
+            public void run() {
+                pendingRetries.remove(this);
+                if (isStale(request) || request.getState() != PageState.LOADING || request.getFailures() != failures) {
+                    return;
+                }
+                if (metricsListener != null) {
+                    metricsListener.onRetry(1);
+                }
+                requestPage(request);
+            }
+        };
+        pendingRetries.add(retry);
+        retryExecutor.executeDelayed(retry, delayMillis);
+    }
+
+    private void cancelRetries() {
+        for (int i = 0; i < pendingRetries.size(); i++) {
+            retryExecutor.cancel(pendingRetries.get(i));
+        }
+        pendingRetries.clear();
+    }
+
+    /**
+     * Footer displays state of the next page to add. Limit once reached stays until reset.
+     */
+    private void updateState(boolean limitReached) {
+        PageRequest head = requests.headAppend();
+        switch (engine.updateFooter(limitReached, head == null ? null : head.getState())) {
+            case PagingEngine.FOOTER_CHANGED:
+                updates.onChanged(data.size(), 1, null);
+                break;
+            case PagingEngine.FOOTER_REMOVED:
+                updates.onRemoved(data.size(), 1);
+                break;
+            case PagingEngine.FOOTER_INSERTED:
+                updates.onInserted(data.size(), 1);
+                break;
+        }
+    }
+
+    private void requestPage(final PageRequest request) {
+        if (request.isCancelled()) {
+            // Cancelled by synchronous result of previous request
+            return;
+        }
+        request.setRequestTime(SystemClock.uptimeMillis());
+        startFirstPageTiming();
+
+        if (pageCache != null && !usesKeys() && request.getType() != PageRequest.Type.REVALIDATE) {
+            PageCache.CachedPage<E> entry = pageCache.getFromMemory(request.getDistance(), pageSize);
+            if (entry != null) {
+                completeFromCache(request, entry);
+                return;
+            }
+            if (pageCache.hasDisk()) {
+                diffExecutor.execute(() -> {
+                    final PageCache.CachedPage<E> diskEntry = pageCache.readFromDisk(request.getDistance(), pageSize);
+                    mainThreadExecutor.execute(() -> {
+                        if (isStale(request)) {
+                            return;
+                        }
+                        if (diskEntry != null) {
+                            completeFromCache(request, diskEntry);
+                        } else {
+                            callLoadCallback(request);
+                        }
+                    });
+                });
+                return;
+            }
+        }
+
+        callLoadCallback(request);
+    }
+
+    private void completeFromCache(PageRequest request, PageCache.CachedPage<E> entry) {
+        complete(request, entry.getItems(), true);
+        if (!pageCache.isFresh(entry)) {
+            requestPage(enqueue(request.getDistance(), PageRequest.Type.REVALIDATE));
+        }
+    }
+
+    private void saveAnchor(PagingSavedState<E> state) {
+        state.anchorPosition = firstVisiblePosition;
+        state.anchorOffset = 0;
+        RecyclerView.LayoutManager manager = recyclerView == null ? null : recyclerView.getLayoutManager();
+        if (manager == null || manager.getChildCount() == 0) {
+            return;
+        }
+
+        View child = manager.getChildAt(0);
+        state.anchorPosition = manager.getPosition(child);
+        state.anchorOffset = manager.canScrollHorizontally()
+                ? manager.getDecoratedLeft(child) - manager.getPaddingLeft()
+                : manager.getDecoratedTop(child) - manager.getPaddingTop();
+    }
+
+    private void applyAnchor(RecyclerView.LayoutManager manager) {
+        if (pendingAnchorPosition == RecyclerView.NO_POSITION || manager == null || data.isEmpty()) {
+            return;
         }
+
+        int position = Math.min(pendingAnchorPosition, data.size() - 1);
+        if (manager instanceof LinearLayoutManager) {
+            ((LinearLayoutManager) manager).scrollToPositionWithOffset(position, pendingAnchorOffset);
+        } else if (manager instanceof StaggeredGridLayoutManager) {
+            ((StaggeredGridLayoutManager) manager).scrollToPositionWithOffset(position, pendingAnchorOffset);
+        } else {
+            manager.scrollToPosition(position);
+        }
+        pendingAnchorPosition = RecyclerView.NO_POSITION;
     }
 
-    private void loadMore() {
-        if (loadNextPartCallback != null) {
-            loadNextPartCallback.loadNextPage(distance + pageSize, pageSize);
+    private static byte[] readFile(File file) throws IOException {
+        if (!file.exists()) {
+            return null;
+        }
+        try (DataInputStream in = new DataInputStream(new FileInputStream(file))) {
+            byte[] bytes = new byte[(int) file.length()];
+            in.readFully(bytes);
+            return bytes;
+        }
+    }
+
+    private void startFirstPageTiming() {
+        if (data.isEmpty() && firstPageStart == 0) {
+            firstPageStart = SystemClock.uptimeMillis();
+        }
+    }
+
+    /**
+     * Makes footer span the full row of {@link GridLayoutManager}. Lookup installed by another adapter
+     * (for example the one this adapter replaced) is unwrapped, so it does not keep that adapter alive.
+     */
+    private void installSpanLookup(@Nullable RecyclerView.LayoutManager manager) {
+        if (manager == spanLookupManager) {
+            return;
+        }
+        uninstallSpanLookup();
+        spanLookupManager = manager;
+        if (!(manager instanceof GridLayoutManager)) {
+            return;
+        }
+
+        GridLayoutManager gridManager = (GridLayoutManager) manager;
+        GridLayoutManager.SpanSizeLookup current = gridManager.getSpanSizeLookup();
+        if (current instanceof FooterSpanSizeLookup) {
+            current = ((FooterSpanSizeLookup) current).getDelegate();
+        }
+        spanLookup = new FooterSpanSizeLookup(gridManager, current, this::isFooter);
+        gridManager.setSpanSizeLookup(spanLookup);
+    }
+
+    /**
+     * Gives client span lookup back to the layout manager, unless another lookup was set since.
+     */
+    private void uninstallSpanLookup() {
+        if (spanLookup != null && spanLookupManager instanceof GridLayoutManager) {
+            GridLayoutManager gridManager = (GridLayoutManager) spanLookupManager;
+            if (gridManager.getSpanSizeLookup() == spanLookup) {
+                gridManager.setSpanSizeLookup(spanLookup.getDelegate());
+            }
+        }
+        spanLookup = null;
+        spanLookupManager = null;
+    }
+
+    private void beginTrace(String section) {
+        if (traceEnabled && Build.VERSION.SDK_INT >= Build.VERSION_CODES.JELLY_BEAN_MR2) {
+            Trace.beginSection(section);
+        }
+    }
+
+    private void endTrace() {
+        if (traceEnabled && Build.VERSION.SDK_INT >= Build.VERSION_CODES.JELLY_BEAN_MR2) {
+            Trace.endSection();
+        }
+    }
+
+    private void callLoadCallback(PageRequest request) {
+        if (pageSource != null) {
+            pageSource.subscribe(request, new PageStream(request, request.startAttempt()));
+            return;
+        }
+
+        // Result may come synchronously
+        request.setAwaitingResult(true);
+        if (loadNextKeyCallback != null) {
+            loadNextKeyCallback.loadNextPage(request.getKey(), pageSize, request);
+        } else if (loadNextPartCallback != null) {
+            loadNextPartCallback.loadNextPage(request.getDistance(), pageSize, request);
         } else if (loadNextPageCallback != null) {
-            loadNextPageCallback.loadNextPage(currentPage + 1);
+            loadNextPageCallback.loadNextPage(request.getPage(), request);
+        }
+    }
+
+    private boolean isFooter(int position) {
+        return position == data.size() && engine.hasFooter();
+    }
+
+    /**
+     * @return True if list may have placeholders of pages that are not loaded.
+     */
+    private boolean hasPlaceholders() {
+        return isWindowed() || totalCountKnown;
+    }
+
+    private boolean isWindowed() {
+        return windowSize != Integer.MAX_VALUE;
+    }
+
+    private int pageOf(int position) {
+        return position / pageSize;
+    }
+
+    private int pageCount() {
+        return (data.size() + pageSize - 1) / pageSize;
+    }
+
+    /**
+     * Keeps window of pages around visible range and requests the next page when user scrolls close to the end.
+     * @param itemCount Number of items laid out, footer included.
+     * @param moved False if range changed because of layout, not because user scrolled.
+     */
+    @VisibleForTesting
+    void onVisibleRangeChanged(int first, int last, int spanCount, int itemCount, boolean moved) {
+        int prevFirstPage = pageOf(Math.max(firstVisiblePosition, 0));
+        int prevLastPage = pageOf(Math.max(lastVisiblePosition, 0));
+        firstVisiblePosition = first;
+        lastVisiblePosition = last;
+        if (lastVisiblePosition == RecyclerView.NO_POSITION) {
+            return;
+        }
+
+        if (isWindowed() && (pageOf(firstVisiblePosition) != prevFirstPage || pageOf(lastVisiblePosition) != prevLastPage)) {
+            trimWindow(windowSize);
+        }
+        if (hasPlaceholders()) {
+            requestDroppedPage();
+        }
+        if (!stalePages.isEmpty()) {
+            revalidateVisiblePages();
+        }
+        itemPrefetches.onVisibleRangeChanged(data, firstVisiblePosition, lastVisiblePosition);
+
+        prefetchPolicy.onScrolled(lastVisiblePosition, SystemClock.uptimeMillis());
+
+        if (!moved) {
+            return;
+        }
+
+        int threshold = prefetchPolicy.getLoadThreshold(spanCount);
+        if (engine.shouldLoad(itemCount, lastVisiblePosition, threshold, maxConcurrentRequests - requests.size())) {
+            loadMore();
+        }
+    }
+
+    @VisibleForTesting
+    PageState getFooterState() {
+        return engine.getFooterState();
+    }
+
+    /**
+     * Replaces executors, so work posted to the main thread and background runs on the JVM,
+     * where main thread handler never runs anything.
+     */
+    @VisibleForTesting
+    void setExecutors(@NonNull Executor mainThreadExecutor, @NonNull Executor diffExecutor) {
+        this.mainThreadExecutor = mainThreadExecutor;
+        this.diffExecutor = diffExecutor;
+    }
+
+    /**
+     * Replaces main thread check and frame callbacks, so results set off the main thread are queued on the JVM,
+     * where every thread looks like the main one.
+     */
+    @VisibleForTesting
+    void setThreading(@NonNull PagingExecutors.ThreadCheck threadCheck, @NonNull Executor frameExecutor) {
+        this.threadCheck = threadCheck;
+        this.frameExecutor = frameExecutor;
+    }
+
+    /**
+     * Replaces executor of delayed retries, so tests decide when retry delay is over.
+     */
+    @VisibleForTesting
+    void setRetryExecutor(@NonNull PagingExecutors.DelayedExecutor retryExecutor) {
+        this.retryExecutor = retryExecutor;
+    }
+
+    /**
+     * Replaces notifications target, so adapter can be driven without {@link RecyclerView} on the JVM.
+     */
+    @VisibleForTesting
+    void setUpdateTarget(@NonNull ListUpdateCallback updateTarget) {
+        this.updateTarget = updateTarget;
+    }
+
+    /**
+     * Replaces pages that are far from visible range with placeholders.
+     * Visible pages and the last page are always kept, so appending never drops what was just loaded.
+     */
+    private void trimWindow(int keepPages) {
+        if (firstVisiblePosition == RecyclerView.NO_POSITION || data.isEmpty()) {
+            return;
+        }
+
+        int lastPage = pageCount() - 1;
+        int firstVisiblePage = pageOf(Math.min(firstVisiblePosition, data.size() - 1));
+        int lastVisiblePage = pageOf(Math.min(lastVisiblePosition, data.size() - 1));
+
+        int extra = Math.max(0, keepPages - (lastVisiblePage - firstVisiblePage + 1));
+        int from = Math.max(0, firstVisiblePage - extra / 2);
+        int to = lastVisiblePage + (extra - (firstVisiblePage - from));
+
+        for (int page = loadedPages.nextSetBit(0); page >= 0; page = loadedPages.nextSetBit(page + 1)) {
+            if (page > lastPage) {
+                break;
+            }
+            if ((page < from || page > to) && page != lastPage && requests.find(page * pageSize) == null
+                    && (!usesKeys() || pageKeys.containsKey(page))) {
+                dropPage(page);
+            }
+        }
+    }
+
+    private void dropPage(int page) {
+        modCount++;
+        int start = page * pageSize;
+        int end = Math.min(start + pageSize, data.size());
+        for (int i = start; i < end; i++) {
+            preparedItems.remove(data.get(i));
+            positionIndex.replace(i, data.get(i), null);
+            data.set(i, null);
+        }
+        loadedPages.clear(page);
+        updates.onChanged(start, end - start, null);
+        itemPrefetches.invalidate(start, end);
+    }
+
+    /**
+     * Requests the nearest dropped page around visible range. Only one page is restored at a time.
+     */
+    private void requestDroppedPage() {
+        if (requests.hasRestore() || requests.size() >= maxConcurrentRequests || data.isEmpty()) {
+            return;
+        }
+
+        int lastPage = pageCount() - 1;
+        int firstVisible = pageOf(firstVisiblePosition);
+        int lastVisible = Math.min(lastPage, pageOf(lastVisiblePosition));
+
+        // Visible pages go first, then pages next to them
+        int page = loadedPages.nextClearBit(firstVisible);
+        if (page > lastVisible) {
+            page = loadedPages.nextClearBit(Math.max(0, firstVisible - 1));
+            if (page > Math.min(lastPage, lastVisible + 1)) {
+                return;
+            }
+        }
+
+        PageRequest request = enqueue(page * pageSize, PageRequest.Type.RESTORE);
+        request.setKey(pageKeys.get(page));
+        requestPage(request);
+    }
+
+    /**
+     * Pages before the refreshed ones are reloaded when user scrolls back to them.
+     */
+    private void revalidateVisiblePages() {
+        int from = Math.max(0, pageOf(firstVisiblePosition) - 1);
+        int to = pageOf(lastVisiblePosition) + 1;
+        for (int page = stalePages.nextSetBit(from); page >= 0 && page <= to; page = stalePages.nextSetBit(page + 1)) {
+            stalePages.clear(page);
+            revalidatePage(page);
+        }
+    }
+
+    private void revalidatePage(int page) {
+        int start = page * pageSize;
+        if (start >= data.size() || data.get(start) == null || requests.find(start) != null) {
+            // Placeholders are loaded anyway
+            return;
+        }
+        PageRequest request = enqueue(start, PageRequest.Type.REVALIDATE);
+        request.setKey(pageKeys.get(page));
+        requestPage(request);
+    }
+
+    /**
+     * Page is the same if it has the same version, or if it has no version and the same items.
+     */
+    private boolean isSamePage(int page, int start, List<E> newData, Object version) {
+        if (version != null) {
+            return version.equals(pageVersions.get(page));
+        }
+
+        int end = Math.min(start + pageSize, data.size());
+        if (end - start != newData.size()) {
+            return false;
+        }
+        DiffUtil.ItemCallback<E> itemCallback = itemCallback();
+        for (int i = 0; i < newData.size(); i++) {
+            E oldItem = data.get(start + i);
+            E newItem = newData.get(i);
+            if (oldItem == null || newItem == null || !itemCallback.areItemsTheSame(oldItem, newItem)
+                    || !itemCallback.areContentsTheSame(oldItem, newItem)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private DiffUtil.ItemCallback<E> itemCallback() {
+        return diffCallback != null ? diffCallback
+                : keyProvider != null ? new PageDiffCallback.KeyItemCallback<>(keyProvider)
+                : new PageDiffCallback.EqualsItemCallback<>();
+    }
+
+    /**
+     * Requests page of bound placeholder. Request is sent after binding, because result may come synchronously
+     * and RecyclerView does not accept changes during layout.
+     */
+    private void requestPlaceholderPage(int page) {
+        if (!hasPlaceholders() || loadedPages.get(page) || requests.find(page * pageSize) != null
+                || requests.size() >= maxConcurrentRequests) {
+            return;
+        }
+
+        final PageRequest request = enqueue(page * pageSize, PageRequest.Type.RESTORE);
+        request.setKey(pageKeys.get(page));
+        mainThreadExecutor.execute(() -> requestPage(request));
+    }
+
+    private void restorePage(int page, List<E> newData) {
+        int start = page * pageSize;
+        int count = Math.min(newData.size(), Math.min(pageSize, data.size() - start));
+        if (count <= 0) {
+            return;
+        }
+        for (int i = 0; i < count; i++) {
+            positionIndex.replace(start + i, data.get(start + i), newData.get(i));
+            data.set(start + i, newData.get(i));
+        }
+        loadedPages.set(page);
+        updates.onChanged(start, count, null);
+        itemPrefetches.schedule(data);
+    }
+
+    /**
+     * Insert and remove shift items across page borders, so versions of shifted pages are not valid anymore.
+     * If dropped page follows, shifted pages no longer match server pages, so they are requested again when visible.
+     */
+    private void invalidateShiftedPages(int position) {
+        itemPrefetches.invalidate(position, Integer.MAX_VALUE);
+        int page = pageOf(position);
+        pageVersions.tailMap(page).clear();
+        if (!hasPlaceholders()) {
+            return;
+        }
+
+        if (loadedPages.nextClearBit(page) < pageCount()) {
+            loadedPages.clear(page, Integer.MAX_VALUE);
+        }
+    }
+
+    private void submit(final int page, final int start, final List<E> newItems, final int listGen, final int pageGen) {
+        if (start >= data.size() && page != NO_PAGE) {
+            // Page was removed while waiting for diff
+            return;
+        }
+        final int end = page == NO_PAGE ? data.size() : Math.min(start + pageSize, data.size());
+        final List<E> oldItems = new ArrayList<>(data.subList(start, end));
+        final DiffUtil.ItemCallback<E> itemCallback = itemCallback();
+        final int snapshotModCount = modCount;
+
+        diffExecutor.execute(() -> {
+            final DiffUtil.DiffResult result = DiffUtil.calculateDiff(new PageDiffCallback<>(oldItems, newItems, itemCallback));
+            mainThreadExecutor.execute(() -> {
+                if (listGen != listGeneration || (page != NO_PAGE && !Integer.valueOf(pageGen).equals(pageGenerations.get(page)))) {
+                    // Newer submission arrived
+                    return;
+                }
+                if (snapshotModCount != modCount) {
+                    // Data was changed while diff was calculated
+                    submit(page, start, newItems, listGen, pageGen);
+                    return;
+                }
+                applySubmission(page, start, end, newItems, result);
+            });
+        });
+    }
+
+    private void applySubmission(int page, final int start, int end, List<E> newItems, DiffUtil.DiffResult result) {
+        modCount++;
+        positionIndex.invalidate();
+        List<E> range = data.subList(start, end);
+        range.clear();
+        range.addAll(newItems);
+        itemPrefetches.invalidate(start, Integer.MAX_VALUE);
+        itemPrefetches.schedule(data);
+
+        result.dispatchUpdatesTo(new ListUpdateCallback() {
+            @Override
+            public void onInserted(int position, int count) {
+                updates.onInserted(start + position, count);
+            }
+
+            @Override
+            public void onRemoved(int position, int count) {
+                updates.onRemoved(start + position, count);
+            }
+
+            @Override
+            public void onMoved(int fromPosition, int toPosition) {
+                updates.onMoved(start + fromPosition, start + toPosition);
+            }
+
+            @Override
+            public void onChanged(int position, int count, Object payload) {
+                updates.onChanged(start + position, count, payload);
+            }
+        });
+
+        if (page == NO_PAGE) {
+            // Requests were issued with offsets of the old list, next pages start right after the new one.
+            // Next page requested by key does not depend on the list.
+            boolean reissue = !usesKeys() && requests.size() > 0;
+            boolean hadAppends = requests.headAppend() != null;
+            if (reissue) {
+                cancelRequests();
+            }
+            engine.setItemCount(data.size());
+            loadedPages.clear();
+            loadedPages.set(0, pageCount());
+            if (reissue && hadAppends) {
+                loadMore();
+            } else if (reissue) {
+                updateState(false);
+            }
+        } else {
+            pageGenerations.remove(page);
+            loadedPages.set(page - 1);
+            int shift = newItems.size() - (end - start);
+            if (usesOffsets() && shift != 0) {
+                // Server page changed its size, next pages start from shifted offset
+                engine.shift(shift);
+                if (!usesKeys()) {
+                    reissueRequests();
+                }
+            }
+        }
+    }
+
+    /**
+     * Requests next pages until all request slots are busy.
+     */
+    private void loadMore() {
+        int free = maxConcurrentRequests - requests.size();
+        if (usesKeys()) {
+            // Key of the next page is known only when the previous page arrives
+            free = requests.headAppend() == null ? Math.min(free, 1) : 0;
+        }
+        List<PageRequest> issued = new ArrayList<>(Math.max(free, 0));
+        for (int i = 0; i < free; i++) {
+            int next = requests.nextAppendDistance(engine.getNextDistance(), pageSize);
+            if (!engine.isWithinLimit(next)) {
+                break;
+            }
+            PageRequest request = enqueue(next, PageRequest.Type.APPEND);
+            request.setKey(nextKey);
+            issued.add(request);
+        }
+
+        updateState(false);
+        for (PageRequest request : issued) {
+            requestPage(request);
+        }
+    }
+
+    /**
+     * Subscriber of one attempt to load a page from {@link PageSource}.
+     * Signals may come from any thread, items are collected and handed to the main thread once per frame.
+     */
+    private final class PageStream implements PageSource.Subscriber<E> {
+
+        private final PageRequest request;
+        private final int attempt;
+        private volatile PageSource.Subscription subscription;
+
+        // Guarded by this
+        private final List<E> pending = new ArrayList<>();
+        private int emitted;
+
+        // Accessed on main thread only
+        private int received;
+
+        PageStream(PageRequest request, int attempt) {
+            this.request = request;
+            this.attempt = attempt;
+        }
+
+        @Override
+        public void onSubscribe(@NonNull PageSource.Subscription subscription) {
+            this.subscription = subscription;
+            request.setOnCancelListener(subscription::cancel);
+            if (!request.isCancelled()) {
+                subscription.request(request.getPageSize());
+            }
+        }
+
+        @Override
+        public void onNext(@NonNull E item) {
+            boolean schedule;
+            synchronized (this) {
+                if (++emitted > request.getPageSize()) {
+                    // More items than requested, page is complete anyway
+                    subscription.cancel();
+                    return;
+                }
+                schedule = pending.isEmpty();
+                pending.add(item);
+            }
+            if (schedule) {
+                results.post(this::drain);
+            }
+        }
+
+        @Override
+        public void onError(@NonNull Throwable error) {
+            results.post(() -> {
+                if (isCurrent()) {
+                    fail(request);
+                }
+            });
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public void onComplete() {
+            results.post(() -> {
+                if (isCurrent()) {
+                    complete(request, (List<E>) (List<?>) request.getStreamedItems());
+                }
+            });
+        }
+
+        private void drain() {
+            List<E> items;
+            synchronized (this) {
+                items = new ArrayList<>(pending);
+                pending.clear();
+            }
+            if (!isCurrent()) {
+                return;
+            }
+
+            List<Object> streamed = request.getStreamedItems();
+            for (int i = 0; i < items.size(); i++) {
+                // Items shown before error are emitted again
+                if (++received > request.getShownCount()) {
+                    streamed.add(items.get(i));
+                }
+            }
+            if (request.isAppend() && requests.headAppend() == request) {
+                showStreamed(request);
+            }
+        }
+
+        private boolean isCurrent() {
+            return !isStale(request) && request.getAttempt() == attempt
+                    && request.getState() == PageState.LOADING;
+        }
+    }
+
+    /**
+     * Reports notifications dispatched to RecyclerView to metrics listener.
+     */
+    private final class MeteredUpdateCallback implements ListUpdateCallback {
+
+        @Override
+        public void onInserted(int position, int count) {
+            updateTarget.onInserted(position, count);
+            if (metricsListener != null) {
+                metricsListener.onNotified(PagingMetricsListener.NOTIFY_INSERTED, count);
+            }
+        }
+
+        @Override
+        public void onRemoved(int position, int count) {
+            updateTarget.onRemoved(position, count);
+            if (metricsListener != null) {
+                metricsListener.onNotified(PagingMetricsListener.NOTIFY_REMOVED, count);
+            }
+        }
+
+        @Override
+        public void onMoved(int fromPosition, int toPosition) {
+            updateTarget.onMoved(fromPosition, toPosition);
+            if (metricsListener != null) {
+                metricsListener.onNotified(PagingMetricsListener.NOTIFY_MOVED, 1);
+            }
         }
 
-        PageState prev = currentSate;
-        currentSate = PageState.LOADING;
-        if (prev == PageState.LOADED) {
-            notifyItemInserted(data.size());
-        } else if (prev == PageState.ERROR) {
-            notifyItemChanged(data.size());
+        @Override
+        public void onChanged(int position, int count, Object payload) {
+            updateTarget.onChanged(position, count, payload);
+            if (metricsListener != null) {
+                metricsListener.onNotified(PagingMetricsListener.NOTIFY_CHANGED, count);
+            }
         }
     }
 
     private final DefaultErrorViewHolder.RetryDelegate delegateImpl = this::retry;
 
+    private final ComponentCallbacks2 memoryCallbacks = new ComponentCallbacks2() {
+        @Override
+        public void onTrimMemory(int level) {
+            PaginationAdapter.this.onTrimMemory(level);
+        }
+
+        @Override
+        public void onConfigurationChanged(Configuration newConfig) {
+        }
+
+        @Override
+        public void onLowMemory() {
+            PaginationAdapter.this.onTrimMemory(ComponentCallbacks2.TRIM_MEMORY_COMPLETE);
+        }
+    };
+
     protected class PagedScrollListener extends RecyclerView.OnScrollListener {
 
         @Override
         public void onScrolled(RecyclerView recyclerView, int dx, int dy) {
             super.onScrolled(recyclerView, dx, dy);
 
-            if (currentSate == PageState.REACHED_LIMIT
-                    || currentSate == PageState.LOADING
-                    || currentSate == PageState.ERROR
-                    || dy == 0) {
-                return;
-            }
-
             RecyclerView.LayoutManager manager = recyclerView.getLayoutManager();
-            if (manager instanceof LinearLayoutManager) {
-                int totalItemCount = manager.getItemCount();
-                int lastVisibleItemPosition = ((LinearLayoutManager) manager).findLastVisibleItemPosition();
-
-                if (totalItemCount <= (lastVisibleItemPosition + loadThreshold)) {
-                    loadMore();
-                }
+            if (manager != spanLookupManager) {
+                // Layout manager was set or replaced after adapter
+                installSpanLookup(manager);
+            }
+            if (manager == null) {
+                return;
             }
 
-            // TODO: GridLayoutManager
+            visibleRange.update(manager);
+            onVisibleRangeChanged(visibleRange.getFirstVisiblePosition(), visibleRange.getLastVisiblePosition(),
+                    visibleRange.getSpanCount(), manager.getItemCount(), dx != 0 || dy != 0);
         }
     }
 }
@@ -1,17 +1,34 @@
 package com.ilichev.vladimir.paginationadapter;
 
 import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
 
 public final class PagingConfig {
 
     private final int dataLimit;
     private final int pageSize;
     private final int loadThreshold;
+    private final int windowSize;
+    private final int maxConcurrentRequests;
+    private final int prewarmItemHolders;
+    private final int prewarmStateHolders;
+    private final RetryPolicy retryPolicy;
+    private final int itemPrefetchDistance;
+    private final int maxConcurrentItemPrefetches;
 
-    private PagingConfig(int dataLimit, int pageSize, int loadThreshold) {
+    private PagingConfig(int dataLimit, int pageSize, int loadThreshold, int windowSize, int maxConcurrentRequests,
+                         int prewarmItemHolders, int prewarmStateHolders, RetryPolicy retryPolicy,
+                         int itemPrefetchDistance, int maxConcurrentItemPrefetches) {
         this.dataLimit = dataLimit;
         this.pageSize = pageSize;
         this.loadThreshold = loadThreshold;
+        this.windowSize = windowSize;
+        this.maxConcurrentRequests = maxConcurrentRequests;
+        this.prewarmItemHolders = prewarmItemHolders;
+        this.prewarmStateHolders = prewarmStateHolders;
+        this.retryPolicy = retryPolicy;
+        this.itemPrefetchDistance = itemPrefetchDistance;
+        this.maxConcurrentItemPrefetches = maxConcurrentItemPrefetches;
     }
 
     public int getDataLimit() {
@@ -26,12 +43,48 @@ public final class PagingConfig {
         return loadThreshold;
     }
 
+    public int getWindowSize() {
+        return windowSize;
+    }
+
+    public int getMaxConcurrentRequests() {
+        return maxConcurrentRequests;
+    }
+
+    public int getPrewarmItemHolders() {
+        return prewarmItemHolders;
+    }
+
+    public int getPrewarmStateHolders() {
+        return prewarmStateHolders;
+    }
+
+    @Nullable
+    public RetryPolicy getRetryPolicy() {
+        return retryPolicy;
+    }
+
+    public int getItemPrefetchDistance() {
+        return itemPrefetchDistance;
+    }
+
+    public int getMaxConcurrentItemPrefetches() {
+        return maxConcurrentItemPrefetches;
+    }
+
     public static final class Builder {
 
         // Init with default values
         private int dataLimit = Integer.MAX_VALUE;
         private int pageSize = 10;
         private int loadThreshold = 1;
+        private int windowSize = Integer.MAX_VALUE;
+        private int maxConcurrentRequests = 1;
+        private int prewarmItemHolders = 0;
+        private int prewarmStateHolders = 0;
+        private RetryPolicy retryPolicy = null;
+        private int itemPrefetchDistance = 10;
+        private int maxConcurrentItemPrefetches = 4;
 
         public Builder setDataLimit(int dataLimit) {
             this.dataLimit = dataLimit;
@@ -48,9 +101,110 @@ public final class PagingConfig {
             return this;
         }
 
+        /**
+         * Sets how many pages adapter keeps in memory around visible items.
+         * Pages outside of this window are replaced with placeholders and requested again
+         * when user scrolls back to them. By default all pages are kept.
+         * @param windowSize Number of pages to keep, must be positive.
+         * @throws IllegalArgumentException If (windowSize < 1)
+         */
+        public Builder setWindowSize(int windowSize) {
+            if (windowSize < 1) {
+                throw new IllegalArgumentException("Window size must be positive");
+            }
+            this.windowSize = windowSize;
+            return this;
+        }
+
+        /**
+         * Sets how many pages adapter can request at once. Pages may arrive in any order,
+         * to match them with requests set them with {@link PaginationAdapter#setData(int, java.util.List)}.
+         * By default only one page is requested at a time.
+         * @param maxConcurrentRequests Number of requests in flight, must be positive.
+         * @throws IllegalArgumentException If (maxConcurrentRequests < 1)
+         */
+        public Builder setMaxConcurrentRequests(int maxConcurrentRequests) {
+            if (maxConcurrentRequests < 1) {
+                throw new IllegalArgumentException("Max concurrent requests must be positive");
+            }
+            this.maxConcurrentRequests = maxConcurrentRequests;
+            return this;
+        }
+
+        /**
+         * Sets how many item holders adapter creates in background while the first page is loading.
+         * Holders are put to {@link android.support.v7.widget.RecyclerView.RecycledViewPool}, so displaying
+         * the first page only binds them. With several {@link ItemViewType}s the number is for each type.
+         * Holder factories are called off the main thread then with detached parent, they must only inflate views.
+         * Holders of a type whose factory throws are not created in advance.
+         * By default holders are not created in advance.
+         * @param prewarmItemHolders Number of item holders, usually the number of items on screen.
+         * @throws IllegalArgumentException If (prewarmItemHolders < 0)
+         */
+        public Builder setPrewarmItemHolders(int prewarmItemHolders) {
+            if (prewarmItemHolders < 0) {
+                throw new IllegalArgumentException("Prewarm item holders must not be negative");
+            }
+            this.prewarmItemHolders = prewarmItemHolders;
+            return this;
+        }
+
+        /**
+         * Sets how many progress and error footer holders (each) adapter creates in background while
+         * the first page is loading. See {@link #setPrewarmItemHolders(int)}.
+         * @param prewarmStateHolders Number of holders of each state.
+         * @throws IllegalArgumentException If (prewarmStateHolders < 0)
+         */
+        public Builder setPrewarmStateHolders(int prewarmStateHolders) {
+            if (prewarmStateHolders < 0) {
+                throw new IllegalArgumentException("Prewarm state holders must not be negative");
+            }
+            this.prewarmStateHolders = prewarmStateHolders;
+            return this;
+        }
+
+        /**
+         * Sets policy of automatic retry of failed pages. Error footer is shown only when policy gives up.
+         * By default failed pages wait for {@link PaginationAdapter#retry()}.
+         * @param retryPolicy Policy to set or null to disable automatic retry.
+         */
+        public Builder setRetryPolicy(@Nullable RetryPolicy retryPolicy) {
+            this.retryPolicy = retryPolicy;
+            return this;
+        }
+
+        /**
+         * Sets how many items ahead of visible range are handed to {@link ItemPrefetcher}.
+         * By default it is 10 items.
+         * @param itemPrefetchDistance Number of items, must be positive.
+         * @throws IllegalArgumentException If (itemPrefetchDistance < 1)
+         */
+        public Builder setItemPrefetchDistance(int itemPrefetchDistance) {
+            if (itemPrefetchDistance < 1) {
+                throw new IllegalArgumentException("Item prefetch distance must be positive");
+            }
+            this.itemPrefetchDistance = itemPrefetchDistance;
+            return this;
+        }
+
+        /**
+         * Sets how many items {@link ItemPrefetcher} can prefetch at once, items of a prefetch count
+         * until {@link PrefetchRequest#done()}. By default it is 4 items.
+         * @param maxConcurrentItemPrefetches Number of items in flight, must be positive.
+         * @throws IllegalArgumentException If (maxConcurrentItemPrefetches < 1)
+         */
+        public Builder setMaxConcurrentItemPrefetches(int maxConcurrentItemPrefetches) {
+            if (maxConcurrentItemPrefetches < 1) {
+                throw new IllegalArgumentException("Max concurrent item prefetches must be positive");
+            }
+            this.maxConcurrentItemPrefetches = maxConcurrentItemPrefetches;
+            return this;
+        }
+
         @NonNull
         public PagingConfig build() {
-            return new PagingConfig(dataLimit, pageSize, loadThreshold);
+            return new PagingConfig(dataLimit, pageSize, loadThreshold, windowSize, maxConcurrentRequests,
+                    prewarmItemHolders, prewarmStateHolders, retryPolicy, itemPrefetchDistance, maxConcurrentItemPrefetches);
         }
     }
 }
@@ -0,0 +1,150 @@
+package com.ilichev.vladimir.paginationadapter;
+
+import android.os.Build;
+import android.os.Handler;
+import android.os.Looper;
+import android.support.annotation.NonNull;
+import android.view.Choreographer;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Executors shared by all adapters. Background work is done on a small pool of daemon threads,
+ * results are delivered back through main thread {@link Handler}.
+ */
+final class PagingExecutors {
+
+    private static final int BACKGROUND_THREADS = 2;
+
+    private static final Object lock = new Object();
+    private static ExecutorService background;
+    private static ExecutorService inflation;
+    private static Executor mainThread;
+    private static Handler mainThreadHandler;
+    // Choreographer is bound to the thread it is obtained on, so it is obtained on the main thread once
+    private static volatile Choreographer mainThreadChoreographer;
+
+    /**
+     * Tells whether current thread is the main one.
+     */
+    interface ThreadCheck {
+
+        boolean isMainThread();
+    }
+
+    static final ThreadCheck MAIN_LOOPER = () -> Looper.myLooper() == Looper.getMainLooper();
+
+    /**
+     * Runs actions on the main thread after delay. Actions that are not run yet can be cancelled.
+     */
+    interface DelayedExecutor {
+
+        void executeDelayed(@NonNull Runnable action, long delayMillis);
+
+        void cancel(@NonNull Runnable action);
+    }
+
+    static final DelayedExecutor MAIN_HANDLER = new DelayedExecutor() {
+        @Override
+        public void executeDelayed(@NonNull Runnable action, long delayMillis) {
+            mainThreadHandler().postDelayed(action, delayMillis);
+        }
+
+        @Override
+        public void cancel(@NonNull Runnable action) {
+            mainThreadHandler().removeCallbacks(action);
+        }
+    };
+
+    private PagingExecutors() {
+    }
+
+    @NonNull
+    static Executor background() {
+        synchronized (lock) {
+            if (background == null) {
+                background = Executors.newFixedThreadPool(BACKGROUND_THREADS, new PagingThreadFactory());
+            }
+            return background;
+        }
+    }
+
+    /**
+     * @return Single thread for inflation of holders in advance, so it does not delay diffs and page reads.
+     */
+    @NonNull
+    static Executor inflation() {
+        synchronized (lock) {
+            if (inflation == null) {
+                inflation = Executors.newSingleThreadExecutor(new PagingThreadFactory());
+            }
+            return inflation;
+        }
+    }
+
+    @NonNull
+    static Executor mainThread() {
+        synchronized (lock) {
+            if (mainThread == null) {
+                final Handler handler = mainThreadHandler();
+                mainThread = handler::post;
+            }
+            return mainThread;
+        }
+    }
+
+    /**
+     * @return Handler for delayed work on main thread.
+     */
+    @NonNull
+    static Handler mainThreadHandler() {
+        synchronized (lock) {
+            if (mainThreadHandler == null) {
+                mainThreadHandler = new Handler(Looper.getMainLooper());
+            }
+            return mainThreadHandler;
+        }
+    }
+
+    /**
+     * Runs action on main thread at the next frame, before the frame is laid out. Can be called from any thread.
+     * Before Jelly Bean, where there is no {@link Choreographer}, action is posted to main thread handler.
+     */
+    static void postFrame(@NonNull Runnable action) {
+        if (Build.VERSION.SDK_INT < Build.VERSION_CODES.JELLY_BEAN) {
+            mainThreadHandler().post(action);
+            return;
+        }
+
+        Choreographer choreographer = mainThreadChoreographer;
+        if (choreographer == null && Looper.myLooper() == Looper.getMainLooper()) {
+            choreographer = Choreographer.getInstance();
+            mainThreadChoreographer = choreographer;
+        }
+        if (choreographer == null) {
+            mainThreadHandler().post(() -> {
+                mainThreadChoreographer = Choreographer.getInstance();
+                postFrame(action);
+            });
+            return;
+        }
+        choreographer.postFrameCallback(frameTimeNanos -> action.run());
+    }
+
+    private static final class PagingThreadFactory implements ThreadFactory {
+
+        private final AtomicInteger count = new AtomicInteger();
+
+        @Override
+        public Thread newThread(@NonNull Runnable r) {
+            Thread thread = new Thread(r, "paginationadapter-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            thread.setPriority(Thread.MIN_PRIORITY);
+            return thread;
+        }
+    }
+}
@@ -0,0 +1,69 @@
+package com.ilichev.vladimir.paginationadapter;
+
+/**
+ * Receives metrics of {@link PaginationAdapter}, see {@link PaginationAdapter#setMetricsListener(PagingMetricsListener)}.
+ * All callbacks are called on the main thread with primitive arguments, so reporting does not allocate.
+ * Times are measured with {@link android.os.SystemClock#uptimeMillis()} unless told otherwise.
+ * Override only callbacks you need.
+ */
+public interface PagingMetricsListener {
+
+    int NOTIFY_INSERTED = 0;
+    int NOTIFY_REMOVED = 1;
+    int NOTIFY_CHANGED = 2;
+    int NOTIFY_MOVED = 3;
+
+    /**
+     * Page arrived.
+     * @param distance Distance (offset) of the page.
+     * @param latencyMillis Time from page request to its result.
+     * @param fromCache True if page was taken from {@link PageCache}.
+     */
+    default void onPageLoaded(int distance, long latencyMillis, boolean fromCache) {
+    }
+
+    /**
+     * Page failed to load.
+     * @param distance Distance (offset) of the page.
+     * @param latencyMillis Time from page request to the error.
+     */
+    default void onPageFailed(int distance, long latencyMillis) {
+    }
+
+    /**
+     * The first page was added to empty list.
+     * @param millis Time from attaching to RecyclerView or from the first request, whichever was earlier.
+     */
+    default void onFirstPageLoaded(long millis) {
+    }
+
+    /**
+     * Progress footer was on screen and now it is gone. This is the time user waited for the next page.
+     * @param visibleMillis Time footer was attached to window.
+     */
+    default void onFooterStall(long visibleMillis) {
+    }
+
+    /**
+     * Failed pages are requested again with {@link PaginationAdapter#retry()} or automatically by {@link RetryPolicy}.
+     * @param failedPages Number of pages requested again.
+     */
+    default void onRetry(int failedPages) {
+    }
+
+    /**
+     * Item was bound.
+     * @param viewType View type of holder.
+     * @param bindNanos Bind duration measured with {@link System#nanoTime()}.
+     */
+    default void onItemBound(int viewType, long bindNanos) {
+    }
+
+    /**
+     * Adapter dispatched notification to RecyclerView.
+     * @param notifyType One of {@link #NOTIFY_INSERTED}, {@link #NOTIFY_REMOVED}, {@link #NOTIFY_CHANGED}, {@link #NOTIFY_MOVED}.
+     * @param itemCount Number of items in notification, 1 for moves.
+     */
+    default void onNotified(int notifyType, int itemCount) {
+    }
+}
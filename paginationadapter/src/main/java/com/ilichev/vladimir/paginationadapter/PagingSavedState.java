@@ -0,0 +1,168 @@
+package com.ilichev.vladimir.paginationadapter;
+
+import android.support.annotation.NonNull;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInput;
+import java.io.DataInputStream;
+import java.io.DataOutput;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+
+/**
+ * Snapshot of adapter written by {@link PaginationAdapter#saveState}. Items are written with {@link PageSerializer}
+ * as runs of loaded items, pages dropped in windowed mode are restored as placeholders.
+ * Key of the next page can be a {@link String}, {@link Long} or {@link Integer}.
+ * @param <E> Item class.
+ */
+final class PagingSavedState<E> {
+
+    private static final int FORMAT_VERSION = 3;
+
+    private static final int KEY_NULL = 0;
+    private static final int KEY_STRING = 1;
+    private static final int KEY_LONG = 2;
+    private static final int KEY_INT = 3;
+
+    int pageSize;
+    int distance;
+    PageState footerState;
+    int anchorPosition;
+    int anchorOffset;
+    Object nextKey;
+    boolean totalCountKnown;
+    // Null items are placeholders of dropped pages
+    List<E> items;
+
+    @NonNull
+    byte[] write(@NonNull PageSerializer<E> serializer) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            write(serializer, out);
+        }
+        return bytes.toByteArray();
+    }
+
+    void write(@NonNull PageSerializer<E> serializer, @NonNull DataOutput out) throws IOException {
+        out.writeInt(FORMAT_VERSION);
+        out.writeInt(pageSize);
+        out.writeInt(distance);
+        out.writeInt(footerState.ordinal());
+        out.writeInt(anchorPosition);
+        out.writeInt(anchorOffset);
+        writeKey(nextKey, out);
+        out.writeBoolean(totalCountKnown);
+        out.writeInt(items.size());
+
+        BitSet loaded = new BitSet(items.size());
+        for (int i = 0; i < items.size(); i++) {
+            if (items.get(i) != null) {
+                loaded.set(i);
+            }
+        }
+        out.writeInt(runCount(loaded));
+        int start = loaded.nextSetBit(0);
+        while (start >= 0) {
+            int end = loaded.nextClearBit(start);
+            out.writeInt(start);
+            serializer.write(items.subList(start, end), out);
+            start = loaded.nextSetBit(end);
+        }
+    }
+
+    /**
+     * @throws IOException If data is corrupted or written by another version.
+     */
+    @NonNull
+    static <E> PagingSavedState<E> read(@NonNull PageSerializer<E> serializer, @NonNull byte[] data) throws IOException {
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(data))) {
+            return read(serializer, in);
+        }
+    }
+
+    @NonNull
+    static <E> PagingSavedState<E> read(@NonNull PageSerializer<E> serializer, @NonNull DataInput in) throws IOException {
+        if (in.readInt() != FORMAT_VERSION) {
+            throw new IOException("Unknown state format");
+        }
+
+        PagingSavedState<E> state = new PagingSavedState<>();
+        state.pageSize = in.readInt();
+        state.distance = in.readInt();
+        int footer = in.readInt();
+        if (footer < 0 || footer >= PageState.values().length) {
+            throw new IOException("Unknown footer state " + footer);
+        }
+        state.footerState = PageState.values()[footer];
+        state.anchorPosition = in.readInt();
+        state.anchorOffset = in.readInt();
+        state.nextKey = readKey(in);
+        state.totalCountKnown = in.readBoolean();
+
+        int size = in.readInt();
+        if (size < 0) {
+            throw new IOException("Negative item count");
+        }
+        state.items = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            state.items.add(null);
+        }
+        int runs = in.readInt();
+        for (int i = 0; i < runs; i++) {
+            int start = in.readInt();
+            List<E> run = serializer.read(in);
+            if (start < 0 || start + run.size() > size) {
+                throw new IOException("Items out of list bounds");
+            }
+            for (int j = 0; j < run.size(); j++) {
+                state.items.set(start + j, run.get(j));
+            }
+        }
+        return state;
+    }
+
+    private static void writeKey(Object key, DataOutput out) throws IOException {
+        if (key == null) {
+            out.writeByte(KEY_NULL);
+        } else if (key instanceof String) {
+            out.writeByte(KEY_STRING);
+            out.writeUTF((String) key);
+        } else if (key instanceof Long) {
+            out.writeByte(KEY_LONG);
+            out.writeLong((Long) key);
+        } else if (key instanceof Integer) {
+            out.writeByte(KEY_INT);
+            out.writeInt((Integer) key);
+        } else {
+            throw new IOException("Key " + key.getClass() + " can not be saved");
+        }
+    }
+
+    private static Object readKey(DataInput in) throws IOException {
+        int type = in.readByte();
+        switch (type) {
+            case KEY_NULL:
+                return null;
+            case KEY_STRING:
+                return in.readUTF();
+            case KEY_LONG:
+                return in.readLong();
+            case KEY_INT:
+                return in.readInt();
+            default:
+                throw new IOException("Unknown key type " + type);
+        }
+    }
+
+    private static int runCount(BitSet loaded) {
+        int count = 0;
+        for (int start = loaded.nextSetBit(0); start >= 0; start = loaded.nextSetBit(loaded.nextClearBit(start))) {
+            count++;
+        }
+        return count;
+    }
+}
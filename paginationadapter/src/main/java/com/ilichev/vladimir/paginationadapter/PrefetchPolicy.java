@@ -0,0 +1,28 @@
+package com.ilichev.vladimir.paginationadapter;
+
+/**
+ * Decides at what distance from the end of the list {@link PaginationAdapter} requests next page.
+ * Adapter reports scroll progress and page load latency, policy answers with load threshold in items.
+ * Policy keeps state of a single adapter, so do not share one instance between adapters.
+ */
+public interface PrefetchPolicy {
+
+    /**
+     * Called on every scroll event.
+     * @param lastVisiblePosition Position of the last visible item.
+     * @param uptimeMillis Time of the event, see {@link android.os.SystemClock#uptimeMillis()}.
+     */
+    void onScrolled(int lastVisiblePosition, long uptimeMillis);
+
+    /**
+     * Called when requested page is set to adapter.
+     * @param latencyMillis Time passed from page request to the moment page was set.
+     */
+    void onPageLoaded(long latencyMillis);
+
+    /**
+     * @param spanCount Number of items in a row for grid layouts, 1 for linear lists.
+     * @return How many items before the end of the list next page should be requested.
+     */
+    int getLoadThreshold(int spanCount);
+}
@@ -0,0 +1,73 @@
+package com.ilichev.vladimir.paginationadapter;
+
+import android.support.annotation.NonNull;
+
+/**
+ * Handle of items prefetch, see {@link ItemPrefetcher}.
+ * Prefetch takes its items from concurrency budget until it is {@link #done()} or cancelled.
+ * It is cancelled when none of its items is visible or within prefetch distance anymore,
+ * on {@link PaginationAdapter#reset()} and when adapter is detached from
+ * {@link android.support.v7.widget.RecyclerView}.
+ */
+public final class PrefetchRequest {
+
+    private final Runnable onFinished;
+
+    private boolean cancelled;
+    private boolean finished;
+    private PageRequest.OnCancelListener onCancelListener;
+
+    PrefetchRequest(@NonNull Runnable onFinished) {
+        this.onFinished = onFinished;
+    }
+
+    public synchronized boolean isCancelled() {
+        return cancelled;
+    }
+
+    /**
+     * Sets listener that is called once prefetch gets cancelled, for example to cancel image request.
+     * If prefetch is already cancelled listener is called immediately.
+     * @param onCancelListener Listener to set.
+     */
+    public void setOnCancelListener(@NonNull PageRequest.OnCancelListener onCancelListener) {
+        synchronized (this) {
+            if (!cancelled) {
+                this.onCancelListener = onCancelListener;
+                return;
+            }
+        }
+        onCancelListener.onCancel();
+    }
+
+    /**
+     * Tells adapter that prefetch is over, successfully or not, so its items leave concurrency budget.
+     * Can be called from any thread, calls after the first one and after cancellation are ignored.
+     */
+    public void done() {
+        synchronized (this) {
+            if (finished) {
+                return;
+            }
+            finished = true;
+            onCancelListener = null;
+        }
+        onFinished.run();
+    }
+
+    void cancel() {
+        PageRequest.OnCancelListener listener;
+        synchronized (this) {
+            if (finished) {
+                return;
+            }
+            finished = true;
+            cancelled = true;
+            listener = onCancelListener;
+            onCancelListener = null;
+        }
+        if (listener != null) {
+            listener.onCancel();
+        }
+    }
+}
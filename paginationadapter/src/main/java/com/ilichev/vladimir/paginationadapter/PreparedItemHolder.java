@@ -0,0 +1,36 @@
+package com.ilichev.vladimir.paginationadapter;
+
+import android.support.annotation.Nullable;
+import android.view.View;
+
+/**
+ * Holder that renders item together with result of {@link ItemPreparer},
+ * see {@link PaginationAdapter#setItemPreparer(ItemPreparer)}.
+ * @param <E> Item class.
+ * @param <P> Class of prepared data, the same as of preparer set to adapter.
+ */
+public abstract class PreparedItemHolder<E, P> extends ItemHolder<E> {
+
+    private P prepared;
+
+    public PreparedItemHolder(View itemView) {
+        super(itemView);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    void setItem(E item, @Nullable Object prepared) {
+        this.prepared = (P) prepared;
+        super.setItem(item, prepared);
+    }
+
+    @Override
+    protected final void render() {
+        render(prepared);
+    }
+
+    /**
+     * @param prepared Prepared data of {@link #item} or null if adapter has no preparer.
+     */
+    protected abstract void render(@Nullable P prepared);
+}
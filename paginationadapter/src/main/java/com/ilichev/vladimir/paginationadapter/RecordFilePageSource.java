@@ -0,0 +1,215 @@
+package com.ilichev.vladimir.paginationadapter;
+
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+import android.support.annotation.WorkerThread;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.concurrent.Executor;
+
+/**
+ * {@link PageSource} over a memory-mapped file of records. Records are decoded one by one as adapter requests them,
+ * file itself stays in page cache of the system, so only items of loaded pages take heap.
+ * Together with {@link PaginationAdapter#setTotalCount(int)} and {@link PagingConfig.Builder#setWindowSize(int)}
+ * any number of records scrolls with constant heap. Files up to 2 GB are supported.
+ * <p>
+ * File of fixed length records is a plain sequence of records, see {@link #fixed(File, int, RecordDecoder)}.
+ * File of variable length records comes with index file of big-endian {@code long} offsets of record starts,
+ * record ends where the next one starts, see {@link #variable(File, File, RecordDecoder)}.
+ * Files are mapped on the first request, they must not change while the source is used.
+ * @param <E> Item class.
+ */
+public final class RecordFilePageSource<E> implements PageSource<E> {
+
+    private static final int OFFSET_BYTES = 8;
+
+    /**
+     * Decodes one record.
+     * @param <E> Item class.
+     */
+    public interface RecordDecoder<E> {
+
+        /**
+         * Called in background.
+         * @param record Buffer with position at the record start and limit at its end. Buffer is reused
+         *               for the next record, it must not be kept.
+         * @return Decoded item.
+         */
+        @NonNull
+        E decode(@NonNull ByteBuffer record);
+    }
+
+    private final File dataFile;
+    private final File indexFile;
+    private final int recordSize;
+    private final RecordDecoder<E> decoder;
+    private final Executor executor;
+
+    private final Object lock = new Object();
+    private Mapping mapping;
+
+    RecordFilePageSource(@NonNull File dataFile, @Nullable File indexFile, int recordSize,
+                         @NonNull RecordDecoder<E> decoder, @NonNull Executor executor) {
+        this.dataFile = dataFile;
+        this.indexFile = indexFile;
+        this.recordSize = recordSize;
+        this.decoder = decoder;
+        this.executor = executor;
+    }
+
+    /**
+     * Creates source over file of fixed length records.
+     * @param file Records file.
+     * @param recordSize Size of a record in bytes.
+     * @param decoder Decoder of records.
+     * @throws IllegalArgumentException If (recordSize < 1)
+     */
+    @NonNull
+    public static <E> RecordFilePageSource<E> fixed(@NonNull File file, int recordSize, @NonNull RecordDecoder<E> decoder) {
+        if (recordSize < 1) {
+            throw new IllegalArgumentException("Record size must be positive");
+        }
+        return new RecordFilePageSource<>(file, null, recordSize, decoder, PagingExecutors.background());
+    }
+
+    /**
+     * Creates source over file of variable length records.
+     * @param file Records file.
+     * @param indexFile File of record start offsets, one big-endian {@code long} per record.
+     * @param decoder Decoder of records.
+     */
+    @NonNull
+    public static <E> RecordFilePageSource<E> variable(@NonNull File file, @NonNull File indexFile,
+                                                       @NonNull RecordDecoder<E> decoder) {
+        return new RecordFilePageSource<>(file, indexFile, 0, decoder, PagingExecutors.background());
+    }
+
+    /**
+     * @return Number of records, for example for {@link PaginationAdapter#setTotalCount(int)}.
+     * @throws IOException If file can not be mapped or its size does not match the format.
+     */
+    @WorkerThread
+    public int getCount() throws IOException {
+        return map().count;
+    }
+
+    @Override
+    public void subscribe(@NonNull PageRequest request, @NonNull Subscriber<? super E> subscriber) {
+        new RecordSubscription(request, subscriber).start();
+    }
+
+    private Mapping map() throws IOException {
+        synchronized (lock) {
+            if (mapping == null) {
+                mapping = indexFile == null ? mapFixed() : mapVariable();
+            }
+            return mapping;
+        }
+    }
+
+    private Mapping mapFixed() throws IOException {
+        ByteBuffer data = mapFile(dataFile);
+        if (data.capacity() % recordSize != 0) {
+            throw new IOException("Size of " + dataFile + " is not a multiple of record size");
+        }
+        return new Mapping(data, null, data.capacity() / recordSize);
+    }
+
+    private Mapping mapVariable() throws IOException {
+        ByteBuffer data = mapFile(dataFile);
+        ByteBuffer index = mapFile(indexFile);
+        if (index.capacity() % OFFSET_BYTES != 0) {
+            throw new IOException("Size of " + indexFile + " is not a multiple of offset size");
+        }
+        return new Mapping(data, index, index.capacity() / OFFSET_BYTES);
+    }
+
+    private static ByteBuffer mapFile(File file) throws IOException {
+        try (RandomAccessFile raf = new RandomAccessFile(file, "r")) {
+            FileChannel channel = raf.getChannel();
+            long size = channel.size();
+            if (size > Integer.MAX_VALUE) {
+                throw new IOException(file + " is larger than 2 GB");
+            }
+            // Mapping stays valid after the channel is closed
+            return channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+        }
+    }
+
+    private static final class Mapping {
+
+        final ByteBuffer data;
+        final ByteBuffer index;
+        final int count;
+
+        Mapping(ByteBuffer data, ByteBuffer index, int count) {
+            this.data = data;
+            this.index = index;
+            this.count = count;
+        }
+    }
+
+    private final class RecordSubscription extends LocalPageSubscription<E> {
+
+        private final PageRequest request;
+        // Own views of mapped buffers, positions of different pages do not interfere
+        private ByteBuffer data;
+        private ByteBuffer index;
+        private int position;
+        private int end;
+
+        RecordSubscription(PageRequest request, Subscriber<? super E> subscriber) {
+            super(subscriber, executor);
+            this.request = request;
+        }
+
+        @Override
+        void open() throws IOException {
+            Mapping mapping = map();
+            data = mapping.data.duplicate();
+            index = mapping.index == null ? null : mapping.index.duplicate();
+            position = Math.min(request.getDistance(), mapping.count);
+            end = (int) Math.min((long) position + request.getPageSize(), mapping.count);
+        }
+
+        @Nullable
+        @Override
+        E next() throws IOException {
+            if (position >= end) {
+                return null;
+            }
+
+            int start;
+            int limit;
+            if (index == null) {
+                start = position * recordSize;
+                limit = start + recordSize;
+            } else {
+                long from = index.getLong(position * OFFSET_BYTES);
+                long to = position + 1 < index.capacity() / OFFSET_BYTES
+                        ? index.getLong((position + 1) * OFFSET_BYTES)
+                        : data.capacity();
+                if (from < 0 || from > to || to > data.capacity()) {
+                    throw new IOException("Corrupted offset of record " + position + " in " + indexFile);
+                }
+                start = (int) from;
+                limit = (int) to;
+            }
+            position++;
+
+            data.limit(limit);
+            data.position(start);
+            return decoder.decode(data);
+        }
+
+        @Override
+        void close() {
+            data = null;
+            index = null;
+        }
+    }
+}
@@ -0,0 +1,166 @@
+package com.ilichev.vladimir.paginationadapter;
+
+import android.support.annotation.NonNull;
+
+/**
+ * Rules of automatic retry of failed pages, see {@link PagingConfig.Builder#setRetryPolicy(RetryPolicy)}.
+ * Failed page is requested again after exponentially growing delay with random jitter, progress footer stays
+ * on screen meanwhile. Error footer is shown when page fails given number of times in a row, or when
+ * circuit breaker is open: after several failures in a row of any pages automatic retries stop for a while,
+ * so a failing backend is not hammered. Retry by user through {@link PaginationAdapter#retry()} always works.
+ */
+public final class RetryPolicy {
+
+    private final int maxAttempts;
+    private final long initialDelayMillis;
+    private final long maxDelayMillis;
+    private final double multiplier;
+    private final double jitter;
+    private final int breakerThreshold;
+    private final long breakerOpenMillis;
+
+    private RetryPolicy(int maxAttempts, long initialDelayMillis, long maxDelayMillis, double multiplier,
+                        double jitter, int breakerThreshold, long breakerOpenMillis) {
+        this.maxAttempts = maxAttempts;
+        this.initialDelayMillis = initialDelayMillis;
+        this.maxDelayMillis = maxDelayMillis;
+        this.multiplier = multiplier;
+        this.jitter = jitter;
+        this.breakerThreshold = breakerThreshold;
+        this.breakerOpenMillis = breakerOpenMillis;
+    }
+
+    public int getMaxAttempts() {
+        return maxAttempts;
+    }
+
+    public long getInitialDelayMillis() {
+        return initialDelayMillis;
+    }
+
+    public long getMaxDelayMillis() {
+        return maxDelayMillis;
+    }
+
+    public double getMultiplier() {
+        return multiplier;
+    }
+
+    public double getJitter() {
+        return jitter;
+    }
+
+    public int getBreakerThreshold() {
+        return breakerThreshold;
+    }
+
+    public long getBreakerOpenMillis() {
+        return breakerOpenMillis;
+    }
+
+    /**
+     * @param failures Number of failed attempts of the page so far, starting from 1.
+     * @param random Random value from 0 to 1.
+     * @return Delay before the next attempt.
+     */
+    long getDelayMillis(int failures, double random) {
+        double delay = Math.min(maxDelayMillis, initialDelayMillis * Math.pow(multiplier, failures - 1));
+        return Math.round(delay * (1 - jitter * random));
+    }
+
+    public static final class Builder {
+
+        // Init with default values
+        private int maxAttempts = 4;
+        private long initialDelayMillis = 500;
+        private long maxDelayMillis = 30000;
+        private double multiplier = 2;
+        private double jitter = 0.5;
+        private int breakerThreshold = 8;
+        private long breakerOpenMillis = 30000;
+
+        /**
+         * Sets how many times a page is requested before error footer is shown, the first request included.
+         * @param maxAttempts Number of attempts, 1 disables automatic retry.
+         * @throws IllegalArgumentException If (maxAttempts < 1)
+         */
+        public Builder setMaxAttempts(int maxAttempts) {
+            if (maxAttempts < 1) {
+                throw new IllegalArgumentException("Max attempts must be positive");
+            }
+            this.maxAttempts = maxAttempts;
+            return this;
+        }
+
+        /**
+         * Sets delay before the first retry, every next delay is multiplied by {@link #setMultiplier(double)}
+         * up to {@link #setMaxDelayMillis(long)}.
+         * @throws IllegalArgumentException If (initialDelayMillis < 0)
+         */
+        public Builder setInitialDelayMillis(long initialDelayMillis) {
+            if (initialDelayMillis < 0) {
+                throw new IllegalArgumentException("Initial delay must not be negative");
+            }
+            this.initialDelayMillis = initialDelayMillis;
+            return this;
+        }
+
+        /**
+         * @throws IllegalArgumentException If (maxDelayMillis < 0)
+         */
+        public Builder setMaxDelayMillis(long maxDelayMillis) {
+            if (maxDelayMillis < 0) {
+                throw new IllegalArgumentException("Max delay must not be negative");
+            }
+            this.maxDelayMillis = maxDelayMillis;
+            return this;
+        }
+
+        /**
+         * @throws IllegalArgumentException If (multiplier < 1)
+         */
+        public Builder setMultiplier(double multiplier) {
+            if (!(multiplier >= 1)) {
+                throw new IllegalArgumentException("Multiplier must not be less than 1");
+            }
+            this.multiplier = multiplier;
+            return this;
+        }
+
+        /**
+         * Sets random part of delay. Delay is reduced by random share up to jitter, so clients that failed
+         * together do not retry together.
+         * @param jitter Share of delay from 0 (exact delays) to 1 (from zero to full delay).
+         * @throws IllegalArgumentException If jitter is not from 0 to 1
+         */
+        public Builder setJitter(double jitter) {
+            if (!(jitter >= 0 && jitter <= 1)) {
+                throw new IllegalArgumentException("Jitter must be from 0 to 1");
+            }
+            this.jitter = jitter;
+            return this;
+        }
+
+        /**
+         * Sets circuit breaker. After given number of failures in a row automatic retries stop
+         * for open time. The first failure after that opens breaker again, success closes it.
+         * @param threshold Failures in a row that open breaker, 0 disables breaker.
+         * @param openMillis Time without automatic retries.
+         * @throws IllegalArgumentException If (threshold < 0 || openMillis < 0)
+         */
+        public Builder setCircuitBreaker(int threshold, long openMillis) {
+            if (threshold < 0 || openMillis < 0) {
+                throw new IllegalArgumentException("Breaker threshold and open time must not be negative");
+            }
+            this.breakerThreshold = threshold;
+            this.breakerOpenMillis = openMillis;
+            return this;
+        }
+
+        @NonNull
+        public RetryPolicy build() {
+            return new RetryPolicy(maxAttempts, initialDelayMillis, maxDelayMillis, multiplier, jitter,
+                    breakerThreshold, breakerOpenMillis);
+        }
+    }
+}
@@ -0,0 +1,52 @@
+package com.ilichev.vladimir.paginationadapter;
+
+import java.util.Random;
+
+/**
+ * Decides when failed page is requested again according to {@link RetryPolicy}.
+ * Keeps circuit breaker state of one adapter. Accessed on main thread only.
+ */
+final class RetryTracker {
+
+    static final long GIVE_UP = -1;
+
+    private final RetryPolicy policy;
+    private final Random random;
+
+    private int failuresInRow;
+    private long openUntil;
+
+    RetryTracker(RetryPolicy policy, Random random) {
+        this.policy = policy;
+        this.random = random;
+    }
+
+    /**
+     * @param failures Number of failed attempts of the page, including this one.
+     * @param now Current time in millis.
+     * @return Delay before the next attempt or {@link #GIVE_UP} to show error.
+     */
+    long onFailure(int failures, long now) {
+        failuresInRow++;
+        if (isOpen(now)) {
+            return GIVE_UP;
+        }
+        if (policy.getBreakerThreshold() > 0 && failuresInRow >= policy.getBreakerThreshold()) {
+            openUntil = now + policy.getBreakerOpenMillis();
+            return GIVE_UP;
+        }
+        if (failures >= policy.getMaxAttempts()) {
+            return GIVE_UP;
+        }
+        return policy.getDelayMillis(failures, random.nextDouble());
+    }
+
+    void onSuccess() {
+        failuresInRow = 0;
+        openUntil = 0;
+    }
+
+    boolean isOpen(long now) {
+        return now < openUntil;
+    }
+}
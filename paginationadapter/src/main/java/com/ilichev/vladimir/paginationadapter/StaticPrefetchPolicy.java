@@ -0,0 +1,28 @@
+package com.ilichev.vladimir.paginationadapter;
+
+/**
+ * Default policy, requests next page at fixed distance from the end of the list.
+ * For grids distance is counted in rows.
+ * See {@link PagingConfig.Builder#setLoadThreshold(int)}.
+ */
+public class StaticPrefetchPolicy implements PrefetchPolicy {
+
+    private final int loadThreshold;
+
+    public StaticPrefetchPolicy(int loadThreshold) {
+        this.loadThreshold = loadThreshold;
+    }
+
+    @Override
+    public void onScrolled(int lastVisiblePosition, long uptimeMillis) {
+    }
+
+    @Override
+    public void onPageLoaded(long latencyMillis) {
+    }
+
+    @Override
+    public int getLoadThreshold(int spanCount) {
+        return loadThreshold * spanCount;
+    }
+}
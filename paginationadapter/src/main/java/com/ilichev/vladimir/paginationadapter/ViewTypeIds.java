@@ -0,0 +1,36 @@
+package com.ilichev.vladimir.paginationadapter;
+
+import android.support.annotation.NonNull;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Process wide allocator of view type ids. The same key always gets the same id and different keys
+ * never share one, so holders taken from shared {@link android.support.v7.widget.RecyclerView.RecycledViewPool}
+ * are always of expected kind.
+ * Ids start far from small constants and resource ids that other adapters usually use as view types.
+ */
+final class ViewTypeIds {
+
+    private static final int FIRST_ID = 0x50000000;
+
+    private static final Map<Object, Integer> ids = new HashMap<>();
+    private static int nextId = FIRST_ID;
+
+    private ViewTypeIds() {
+    }
+
+    /**
+     * @param key Key with proper equals and hashCode, for example class of holder factory.
+     * @return View type id of the key.
+     */
+    static synchronized int obtain(@NonNull Object key) {
+        Integer id = ids.get(key);
+        if (id == null) {
+            id = nextId++;
+            ids.put(key, id);
+        }
+        return id;
+    }
+}
@@ -0,0 +1,96 @@
+package com.ilichev.vladimir.paginationadapter;
+
+import android.support.v7.widget.GridLayoutManager;
+import android.support.v7.widget.LinearLayoutManager;
+import android.support.v7.widget.RecyclerView;
+import android.support.v7.widget.StaggeredGridLayoutManager;
+import android.view.View;
+
+/**
+ * Finds visible range for any {@link RecyclerView.LayoutManager}.
+ * It runs on every scroll event, so it does not allocate: positions array for
+ * {@link StaggeredGridLayoutManager} is reused until span count changes.
+ */
+final class VisibleRangeTracker {
+
+    private int firstVisiblePosition = RecyclerView.NO_POSITION;
+    private int lastVisiblePosition = RecyclerView.NO_POSITION;
+    private int spanCount = 1;
+
+    private int[] spanPositions;
+
+    void update(RecyclerView.LayoutManager manager) {
+        if (manager instanceof LinearLayoutManager) {
+            LinearLayoutManager linearManager = (LinearLayoutManager) manager;
+            spanCount = manager instanceof GridLayoutManager ? ((GridLayoutManager) manager).getSpanCount() : 1;
+            firstVisiblePosition = linearManager.findFirstVisibleItemPosition();
+            lastVisiblePosition = linearManager.findLastVisibleItemPosition();
+        } else if (manager instanceof StaggeredGridLayoutManager) {
+            StaggeredGridLayoutManager staggeredManager = (StaggeredGridLayoutManager) manager;
+            spanCount = staggeredManager.getSpanCount();
+            if (spanPositions == null || spanPositions.length != spanCount) {
+                spanPositions = new int[spanCount];
+            }
+            firstVisiblePosition = min(staggeredManager.findFirstVisibleItemPositions(spanPositions));
+            lastVisiblePosition = max(staggeredManager.findLastVisibleItemPositions(spanPositions));
+        } else if (manager != null) {
+            spanCount = 1;
+            updateFromChildren(manager);
+        } else {
+            spanCount = 1;
+            firstVisiblePosition = RecyclerView.NO_POSITION;
+            lastVisiblePosition = RecyclerView.NO_POSITION;
+        }
+    }
+
+    int getFirstVisiblePosition() {
+        return firstVisiblePosition;
+    }
+
+    int getLastVisiblePosition() {
+        return lastVisiblePosition;
+    }
+
+    /**
+     * @return Number of items in a row (or column for horizontal lists), 1 for linear lists.
+     */
+    int getSpanCount() {
+        return spanCount;
+    }
+
+    private void updateFromChildren(RecyclerView.LayoutManager manager) {
+        int first = RecyclerView.NO_POSITION;
+        int last = RecyclerView.NO_POSITION;
+        for (int i = 0; i < manager.getChildCount(); i++) {
+            View child = manager.getChildAt(i);
+            int position = child == null ? RecyclerView.NO_POSITION : manager.getPosition(child);
+            if (position == RecyclerView.NO_POSITION) {
+                continue;
+            }
+            if (first == RecyclerView.NO_POSITION || position < first) {
+                first = position;
+            }
+            last = Math.max(last, position);
+        }
+        firstVisiblePosition = first;
+        lastVisiblePosition = last;
+    }
+
+    private static int min(int[] positions) {
+        int result = RecyclerView.NO_POSITION;
+        for (int position : positions) {
+            if (position != RecyclerView.NO_POSITION && (result == RecyclerView.NO_POSITION || position < result)) {
+                result = position;
+            }
+        }
+        return result;
+    }
+
+    private static int max(int[] positions) {
+        int result = RecyclerView.NO_POSITION;
+        for (int position : positions) {
+            result = Math.max(result, position);
+        }
+        return result;
+    }
+}
@@ -0,0 +1,84 @@
+package com.ilichev.vladimir.paginationadapter;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static com.ilichev.vladimir.paginationadapter.PagingFixtures.page;
+import static org.junit.Assert.assertEquals;
+
+public class CancelledRequestTest {
+
+    private static final int PAGE_SIZE = 10;
+
+    private final List<Long> data = new ArrayList<>();
+    private final List<Integer> requested = new ArrayList<>();
+    private PaginationAdapter<Long> adapter;
+
+    @Before
+    public void setUp() {
+        adapter = new PaginationAdapter<Long>(data, new PagingConfig.Builder().setPageSize(PAGE_SIZE).build()) {
+        };
+        adapter.setUpdateTarget(PagingFixtures.NO_UPDATES);
+        adapter.setLoadNextPartCallback((distance, pageSize) -> requested.add(distance));
+    }
+
+    @Test
+    public void resetDoesNotRequest_loadFirstPageRequestsOnce() {
+        adapter.loadFirstPage();
+        adapter.setData(page(0, PAGE_SIZE));
+        adapter.reset();
+        assertEquals(Arrays.asList(0), requested);
+
+        adapter.loadFirstPage();
+        adapter.loadFirstPage();
+        assertEquals(Arrays.asList(0, 0), requested);
+        assertEquals(PageState.LOADING, adapter.getFooterState());
+    }
+
+    @Test
+    public void abandonedCancelledCall_doesNotHoldNextPage() {
+        adapter.loadFirstPage();
+        // Client drops its call on reset and never sets its result
+        adapter.reset();
+        adapter.loadFirstPage();
+
+        adapter.setData(page(100, PAGE_SIZE));
+
+        assertEquals(100L, (long) data.get(0));
+        assertEquals(PageState.LOADED, adapter.getFooterState());
+    }
+
+    @Test
+    public void lateResultOfPreviousGeneration_isDroppedByDistance() {
+        adapter.loadFirstPage();
+        adapter.reset();
+        adapter.loadFirstPage();
+        assertEquals(Arrays.asList(0, 0), requested);
+
+        // Page 0 of the cancelled request arrives after page 0 is requested again
+        adapter.setData(0, page(100, PAGE_SIZE));
+        assertEquals(0, data.size());
+        assertEquals(PageState.LOADING, adapter.getFooterState());
+
+        adapter.setData(0, page(0, PAGE_SIZE));
+        assertEquals(PAGE_SIZE, data.size());
+        assertEquals(0L, (long) data.get(0));
+    }
+
+    @Test
+    public void lateErrorOfPreviousGeneration_isDroppedByDistance() {
+        adapter.loadFirstPage();
+        adapter.reset();
+        adapter.loadFirstPage();
+
+        adapter.setError(0);
+        assertEquals(PageState.LOADING, adapter.getFooterState());
+
+        adapter.setData(0, page(0, PAGE_SIZE));
+        assertEquals(PAGE_SIZE, data.size());
+    }
+}
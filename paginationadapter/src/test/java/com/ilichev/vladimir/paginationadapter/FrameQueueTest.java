@@ -0,0 +1,150 @@
+package com.ilichev.vladimir.paginationadapter;
+
+import android.support.v7.util.ListUpdateCallback;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static com.ilichev.vladimir.paginationadapter.PagingFixtures.page;
+import static org.junit.Assert.assertEquals;
+
+public class FrameQueueTest {
+
+    private List<String> events;
+    private final List<Runnable> frames = new ArrayList<>();
+    private NotificationBatch batch;
+    private FrameQueue queue;
+
+    @Before
+    public void setUp() {
+        events = new ArrayList<>();
+        batch = new NotificationBatch(new ListUpdateCallback() {
+            @Override
+            public void onInserted(int position, int count) {
+                events.add("insert " + position + " " + count);
+            }
+
+            @Override
+            public void onRemoved(int position, int count) {
+                events.add("remove " + position + " " + count);
+            }
+
+            @Override
+            public void onMoved(int fromPosition, int toPosition) {
+                events.add("move " + fromPosition + " " + toPosition);
+            }
+
+            @Override
+            public void onChanged(int position, int count, Object payload) {
+                events.add("change " + position + " " + count);
+            }
+        });
+        queue = new FrameQueue(batch, frames::add);
+    }
+
+    @Test
+    public void resultsFromSeveralThreads_dispatchedAsOneBatch() throws InterruptedException {
+        List<Thread> threads = new ArrayList<>();
+        for (int page = 0; page < 4; page++) {
+            final int position = page * 20;
+            Thread thread = new Thread(() -> queue.post(() -> batch.onInserted(position, 20)));
+            threads.add(thread);
+        }
+        // Pages arrive one after another, but all within one frame
+        for (Thread thread : threads) {
+            thread.start();
+            thread.join();
+        }
+        assertEquals(0, events.size());
+        assertEquals(1, frames.size());
+
+        queue.drain();
+
+        assertEquals(1, events.size());
+        assertEquals("insert 0 80", events.get(0));
+    }
+
+    @Test
+    public void adapterResultsFromBackground_appliedInOneBatchAtFrame() throws InterruptedException {
+        List<Long> data = new ArrayList<>();
+        PaginationAdapter<Long> adapter = adapter(data);
+        adapter.setData(page(0, 20));
+        adapter.onVisibleRangeChanged(0, 19, 1, adapter.getItemCount(), true);
+        events.clear();
+
+        Thread thread = new Thread(() -> {
+            adapter.setData(page(20, 20));
+            adapter.setError();
+        });
+        thread.start();
+        thread.join();
+        assertEquals(20, data.size());
+        assertEquals(0, events.size());
+        assertEquals(1, frames.size());
+
+        frames.remove(0).run();
+
+        assertEquals(40, data.size());
+        assertEquals(PageState.ERROR, adapter.getFooterState());
+        // Page and error footer that replaces progress one
+        assertEquals(Arrays.asList("insert 20 20", "remove 40 1", "insert 40 1"), events);
+    }
+
+    @Test
+    public void adapterResultOnMainThread_appliedAfterQueuedOnes() throws InterruptedException {
+        List<Long> data = new ArrayList<>();
+        PaginationAdapter<Long> adapter = adapter(data);
+        adapter.setData(page(0, 20));
+
+        Thread thread = new Thread(() -> adapter.setData(page(20, 20)));
+        thread.start();
+        thread.join();
+        adapter.setData(page(40, 20));
+
+        assertEquals(60, data.size());
+        assertEquals(20L, (long) data.get(20));
+        assertEquals(40L, (long) data.get(40));
+    }
+
+    private PaginationAdapter<Long> adapter(List<Long> data) {
+        final Thread mainThread = Thread.currentThread();
+        PaginationAdapter<Long> adapter = new PaginationAdapter<Long>(data, new PagingConfig.Builder().setPageSize(20).build()) {
+        };
+        adapter.setUpdateTarget(batch);
+        adapter.setThreading(() -> Thread.currentThread() == mainThread, frames::add);
+        adapter.setLoadNextPartCallback((distance, pageSize) -> {
+        });
+        return adapter;
+    }
+
+    @Test
+    public void emptyQueue_dispatchesNothing() {
+        queue.drain();
+
+        assertEquals(0, events.size());
+    }
+
+    @Test
+    public void throwingAction_restStaysQueued() {
+        queue.post(() -> batch.onInserted(0, 20));
+        queue.post(() -> {
+            throw new IllegalStateException();
+        });
+        queue.post(() -> batch.onInserted(20, 20));
+
+        try {
+            queue.drain();
+        } catch (IllegalStateException ignored) {
+        }
+        assertEquals(1, events.size());
+
+        queue.drain();
+
+        assertEquals(2, events.size());
+        assertEquals("insert 20 20", events.get(1));
+    }
+}
@@ -0,0 +1,132 @@
+package com.ilichev.vladimir.paginationadapter;
+
+import android.support.annotation.NonNull;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class ItemPrefetchSchedulerTest {
+
+    private List<Integer> data;
+    private RecordingPrefetcher prefetcher;
+    private ItemPrefetchScheduler<Integer> scheduler;
+
+    @Before
+    public void setUp() {
+        data = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            data.add(i);
+        }
+        prefetcher = new RecordingPrefetcher();
+        scheduler = new ItemPrefetchScheduler<>(5, 3, () -> true, Runnable::run);
+        scheduler.setPrefetcher(prefetcher);
+    }
+
+    @Test
+    public void itemsAhead_handedWithinBudget() {
+        scheduler.onVisibleRangeChanged(data, 0, 9);
+
+        assertEquals(1, prefetcher.calls.size());
+        assertEquals(Arrays.asList(10, 11, 12), prefetcher.calls.get(0));
+        assertEquals(Integer.valueOf(1), prefetcher.distances.get(0));
+    }
+
+    @Test
+    public void doneRequest_releasesBudgetForNextItems() {
+        scheduler.onVisibleRangeChanged(data, 0, 9);
+
+        prefetcher.requests.get(0).done();
+
+        assertEquals(2, prefetcher.calls.size());
+        assertEquals(Arrays.asList(13, 14), prefetcher.calls.get(1));
+        assertEquals(Integer.valueOf(4), prefetcher.distances.get(1));
+    }
+
+    @Test
+    public void doneOffMainThread_releasesBudgetOnMainThread() {
+        final boolean[] mainThread = {true};
+        List<Runnable> posted = new ArrayList<>();
+        scheduler = new ItemPrefetchScheduler<>(5, 3, () -> mainThread[0], posted::add);
+        scheduler.setPrefetcher(prefetcher);
+        scheduler.onVisibleRangeChanged(data, 0, 9);
+
+        mainThread[0] = false;
+        prefetcher.requests.get(0).done();
+        assertEquals(1, prefetcher.calls.size());
+        assertEquals(1, posted.size());
+
+        mainThread[0] = true;
+        posted.get(0).run();
+        assertEquals(2, prefetcher.calls.size());
+    }
+
+    @Test
+    public void scrollBack_cancelsItemsThatWereNotShown() {
+        scheduler.onVisibleRangeChanged(data, 50, 59);
+        PrefetchRequest ahead = prefetcher.requests.get(0);
+
+        scheduler.onVisibleRangeChanged(data, 45, 54);
+
+        assertTrue(ahead.isCancelled());
+        assertEquals(Arrays.asList(44, 43, 42), prefetcher.calls.get(1));
+    }
+
+    @Test
+    public void visibleItems_notCancelled() {
+        scheduler.onVisibleRangeChanged(data, 0, 9);
+        PrefetchRequest ahead = prefetcher.requests.get(0);
+
+        scheduler.onVisibleRangeChanged(data, 3, 12);
+
+        assertFalse(ahead.isCancelled());
+    }
+
+    @Test
+    public void placeholders_handedWhenLoaded() {
+        for (int i = 10; i < 20; i++) {
+            data.set(i, null);
+        }
+        scheduler.onVisibleRangeChanged(data, 0, 9);
+        assertEquals(0, prefetcher.calls.size());
+
+        data.set(10, 10);
+        scheduler.schedule(data);
+
+        assertEquals(Arrays.asList(10), prefetcher.calls.get(0));
+    }
+
+    @Test
+    public void invalidatedItems_cancelledAndHandedAgain() {
+        scheduler.onVisibleRangeChanged(data, 0, 9);
+        PrefetchRequest ahead = prefetcher.requests.get(0);
+
+        data.add(10, -1);
+        scheduler.invalidate(10, Integer.MAX_VALUE);
+        scheduler.schedule(data);
+
+        assertTrue(ahead.isCancelled());
+        assertEquals(Arrays.asList(-1, 10, 11), prefetcher.calls.get(1));
+    }
+
+    private static final class RecordingPrefetcher implements ItemPrefetcher<Integer> {
+
+        final List<List<Integer>> calls = new ArrayList<>();
+        final List<Integer> distances = new ArrayList<>();
+        final List<PrefetchRequest> requests = new ArrayList<>();
+
+        @Override
+        public void onItemsApproaching(@NonNull List<Integer> items, int distanceFromViewport, @NonNull PrefetchRequest request) {
+            calls.add(new ArrayList<>(items));
+            distances.add(distanceFromViewport);
+            requests.add(request);
+        }
+    }
+}
@@ -0,0 +1,175 @@
+package com.ilichev.vladimir.paginationadapter;
+
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+public class KeyedPagingTest {
+
+    private final List<String> data = new ArrayList<>();
+    private final List<String> keys = new ArrayList<>();
+    private final List<PageRequest> requests = new ArrayList<>();
+    private PaginationAdapter<String> adapter;
+
+    @Before
+    public void setUp() {
+        adapter = adapter(new PagingConfig.Builder()
+                .setPageSize(3)
+                .setMaxConcurrentRequests(3)
+                .build());
+    }
+
+    private PaginationAdapter<String> adapter(PagingConfig config) {
+        PaginationAdapter<String> adapter = new PaginationAdapter<String>(data, config) {
+        };
+        adapter.setUpdateTarget(PagingFixtures.NO_UPDATES);
+        adapter.setLoadNextKeyCallback(new PaginationAdapter.LoadNextKeyCallback<String>() {
+            @Override
+            public void loadNextPage(@Nullable String key, int pageSize, @NonNull PageRequest request) {
+                keys.add(key);
+                requests.add(request);
+            }
+        });
+        return adapter;
+    }
+
+    @Test
+    public void nextPageIsRequestedWithKeyOfPreviousOne() {
+        adapter.setData(new PageResult<>(Arrays.asList("a", "b", "c"), "c", true));
+        scrollToEnd();
+
+        assertEquals(Arrays.asList("c"), keys);
+
+        adapter.setData(requests.get(0), new PageResult<>(Arrays.asList("d", "e", "f"), "f", true));
+        scrollToEnd();
+
+        assertEquals(Arrays.asList("c", "f"), keys);
+        assertEquals(6, data.size());
+    }
+
+    @Test
+    public void onlyOnePageIsRequestedAtATime() {
+        adapter.setData(new PageResult<>(Arrays.asList("a", "b", "c"), "c", true));
+        scrollToEnd();
+        scrollToEnd();
+
+        assertEquals(1, requests.size());
+    }
+
+    @Test
+    public void fullLastPageEndsLoading() {
+        adapter.setData(new PageResult<>(Arrays.asList("a", "b", "c"), null, false));
+        scrollToEnd();
+
+        assertEquals(PageState.REACHED_LIMIT, adapter.getFooterState());
+        assertEquals(0, requests.size());
+    }
+
+    @Test
+    public void shortPageDoesNotEndLoading() {
+        adapter.setData(new PageResult<>(Arrays.asList("a", "b"), "b", true));
+        scrollToEnd();
+
+        assertEquals(PageState.LOADING, adapter.getFooterState());
+        assertEquals(Arrays.asList("b"), keys);
+    }
+
+    @Test
+    public void localChangesDoNotReissueRequests() {
+        adapter.setData(new PageResult<>(Arrays.asList("a", "b", "c"), "c", true));
+        scrollToEnd();
+        adapter.insert("x", 0);
+        adapter.remove(1);
+
+        assertEquals(1, requests.size());
+        adapter.setData(requests.get(0), new PageResult<>(Arrays.asList("d"), null, false));
+        assertEquals(Arrays.asList("x", "b", "c", "d"), data);
+    }
+
+    @Test
+    public void resetStartsFromFirstKey() {
+        adapter.setData(new PageResult<>(Arrays.asList("a", "b", "c"), "c", true));
+        adapter.reset();
+        // Reset does not request anything by itself
+        assertEquals(0, keys.size());
+        adapter.loadFirstPage();
+
+        assertEquals(1, keys.size());
+        assertNull(keys.get(0));
+    }
+
+    @Test
+    public void resultOfRequestCancelledByReset_isDropped() {
+        adapter.setData(new PageResult<>(Arrays.asList("a", "b", "c"), "c", true));
+        scrollToEnd();
+        adapter.reset();
+
+        // Page requested before reset arrives after it
+        adapter.setData(PageResult.last(Arrays.asList("d", "e")));
+        assertEquals(0, data.size());
+
+        adapter.loadFirstPage();
+        adapter.setData(requests.get(0), PageResult.last(Arrays.asList("d", "e")));
+        assertEquals(0, data.size());
+
+        adapter.setData(PageResult.last(Arrays.asList("x", "y")));
+        assertEquals(Arrays.asList("x", "y"), data);
+    }
+
+    @Test
+    public void pageNobodyRequested_isDroppedAfterReset() {
+        adapter.setData(PageResult.last(Arrays.asList("a", "b")));
+        adapter.reset();
+        adapter.setData(PageResult.last(Arrays.asList("z")));
+        assertEquals(0, data.size());
+
+        adapter.loadFirstPage();
+        adapter.setData(PageResult.last(Arrays.asList("x", "y")));
+
+        adapter.setData(PageResult.last(Arrays.asList("z")));
+
+        assertEquals(Arrays.asList("x", "y"), data);
+    }
+
+    @Test
+    public void droppedPageIsRestoredWithItsKey() {
+        adapter = adapter(new PagingConfig.Builder()
+                .setPageSize(3)
+                .setWindowSize(2)
+                .build());
+        adapter.setData(new PageResult<>(Arrays.asList("a", "b", "c"), "c", true));
+        scrollToEnd();
+        adapter.setData(requests.get(0), new PageResult<>(Arrays.asList("d", "e", "f"), "f", true));
+        scrollToEnd();
+        adapter.setData(requests.get(1), new PageResult<>(Arrays.asList("g", "h", "i"), "i", true));
+        scrollToEnd();
+        adapter.setData(requests.get(2), PageResult.last(Arrays.asList("j", "k", "l")));
+
+        // The first pages are dropped when user is at the end
+        adapter.onVisibleRangeChanged(9, 11, 1, adapter.getItemCount(), true);
+        assertNull(data.get(0));
+        assertNull(data.get(3));
+
+        adapter.onVisibleRangeChanged(3, 5, 1, adapter.getItemCount(), true);
+        PageRequest restore = requests.get(requests.size() - 1);
+        assertEquals(PageRequest.Type.RESTORE, restore.getType());
+        assertEquals("c", keys.get(keys.size() - 1));
+
+        adapter.setData(restore, new PageResult<>(Arrays.asList("d", "e", "f"), "f", true));
+        assertEquals(Arrays.asList("d", "e", "f"), data.subList(3, 6));
+    }
+
+    private void scrollToEnd() {
+        int count = adapter.getItemCount();
+        adapter.onVisibleRangeChanged(Math.max(0, count - 2), Math.max(0, count - 1), 1, count, true);
+    }
+}
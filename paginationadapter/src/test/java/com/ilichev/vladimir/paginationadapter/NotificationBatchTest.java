@@ -0,0 +1,206 @@
+package com.ilichev.vladimir.paginationadapter;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+
+import static com.ilichev.vladimir.paginationadapter.PagingFixtures.page;
+import static org.junit.Assert.assertEquals;
+
+public class NotificationBatchTest {
+
+    private static final int PAGE_SIZE = 20;
+
+    private PagingFixtures.RecordingCallback target;
+    private NotificationBatch batch;
+
+    @Before
+    public void setUp() {
+        target = new PagingFixtures.RecordingCallback();
+        batch = new NotificationBatch(target);
+    }
+
+    @Test
+    public void outsideOfBatch_passesThrough() {
+        batch.onInserted(0, 10);
+        batch.onInserted(10, 10);
+
+        assertEquals(2, target.events.size());
+    }
+
+    @Test
+    public void appendedPages_mergedIntoOneInsertion() {
+        batch.begin();
+        for (int page = 0; page < 5; page++) {
+            batch.onInserted(page * 20, 20);
+        }
+        batch.commit();
+
+        assertEquals(1, target.events.size());
+        assertEquals("inserted 0 100", target.events.get(0));
+    }
+
+    @Test
+    public void removalsAtTheSamePosition_mergedIntoOneRemoval() {
+        batch.begin();
+        for (int i = 0; i < 50; i++) {
+            batch.onRemoved(7, 1);
+        }
+        batch.commit();
+
+        assertEquals(1, target.events.size());
+        assertEquals("removed 7 50", target.events.get(0));
+    }
+
+    @Test
+    public void backwardRemovals_mergedIntoOneRemoval() {
+        batch.begin();
+        // Footer removal followed by removal of all items, the same as reset()
+        batch.onRemoved(40, 1);
+        batch.onRemoved(0, 40);
+        batch.commit();
+
+        assertEquals(1, target.events.size());
+        assertEquals("removed 0 41", target.events.get(0));
+    }
+
+    @Test
+    public void changeOfInsertedItems_dropped() {
+        batch.begin();
+        batch.onInserted(10, 20);
+        batch.onChanged(15, 3, null);
+        batch.commit();
+
+        assertEquals(1, target.events.size());
+        assertEquals("inserted 10 20", target.events.get(0));
+    }
+
+    @Test
+    public void removalOfInsertedItems_shrinksInsertion() {
+        batch.begin();
+        batch.onInserted(10, 1);
+        batch.onRemoved(10, 1);
+        batch.onInserted(20, 5);
+        batch.onRemoved(21, 2);
+        batch.commit();
+
+        assertEquals(1, target.events.size());
+        assertEquals("inserted 20 3", target.events.get(0));
+    }
+
+    @Test
+    public void adjacentChanges_mergedIntoOneChange() {
+        batch.begin();
+        for (int i = 0; i < 50; i++) {
+            batch.onChanged(i, 1, null);
+        }
+        batch.commit();
+
+        assertEquals(1, target.events.size());
+        assertEquals("changed 0 50", target.events.get(0));
+    }
+
+    @Test
+    public void changesWithDifferentPayloads_notMerged() {
+        Object payload = new Object();
+
+        batch.begin();
+        batch.onChanged(0, 1, null);
+        batch.onChanged(1, 1, payload);
+        batch.commit();
+
+        assertEquals(2, target.events.size());
+    }
+
+    @Test
+    public void scatteredEdits_keepOrder() {
+        batch.begin();
+        batch.onChanged(3, 1, null);
+        batch.onRemoved(10, 1);
+        batch.onInserted(0, 1);
+        batch.commit();
+
+        assertEquals(3, target.events.size());
+        assertEquals("changed 3 1", target.events.get(0));
+        assertEquals("removed 10 1", target.events.get(1));
+        assertEquals("inserted 0 1", target.events.get(2));
+    }
+
+    @Test
+    public void nestedBatch_dispatchedOnOutermostCommit() {
+        batch.begin();
+        batch.onInserted(0, 10);
+        batch.begin();
+        batch.onInserted(10, 10);
+        batch.commit();
+
+        assertEquals(0, target.events.size());
+
+        batch.commit();
+
+        assertEquals(1, target.events.size());
+        assertEquals("inserted 0 20", target.events.get(0));
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void commitWithoutBegin_throws() {
+        batch.commit();
+    }
+
+    @Test
+    public void adapterInsertions_notifiedOnce() {
+        PaginationAdapter<Long> adapter = adapter();
+        adapter.setData(page(0, PAGE_SIZE));
+        target.events.clear();
+
+        adapter.beginBatch();
+        for (int i = 0; i < 5; i++) {
+            adapter.insert(-1L - i, i);
+        }
+        adapter.commit();
+
+        assertEquals(1, target.events.size());
+        assertEquals("inserted 0 5", target.events.get(0));
+    }
+
+    @Test
+    public void adapterRemovals_notifiedOnce() {
+        PaginationAdapter<Long> adapter = adapter();
+        adapter.setData(page(0, PAGE_SIZE));
+        target.events.clear();
+
+        adapter.beginBatch();
+        for (int i = 0; i < 5; i++) {
+            adapter.remove(3);
+        }
+        adapter.commit();
+
+        assertEquals(1, target.events.size());
+        assertEquals("removed 3 5", target.events.get(0));
+    }
+
+    @Test
+    public void adapterPages_notifiedOnce() {
+        PaginationAdapter<Long> adapter = adapter();
+
+        adapter.beginBatch();
+        for (int page = 0; page < 3; page++) {
+            adapter.setData(page(page * PAGE_SIZE, PAGE_SIZE));
+        }
+        adapter.commit();
+
+        assertEquals(1, target.events.size());
+        assertEquals("inserted 0 60", target.events.get(0));
+    }
+
+    private PaginationAdapter<Long> adapter() {
+        PaginationAdapter<Long> adapter = new PaginationAdapter<Long>(new ArrayList<>(),
+                new PagingConfig.Builder().setPageSize(PAGE_SIZE).build()) {
+        };
+        adapter.setUpdateTarget(target);
+        adapter.setLoadNextPartCallback((distance, pageSize) -> {
+        });
+        return adapter;
+    }
+}
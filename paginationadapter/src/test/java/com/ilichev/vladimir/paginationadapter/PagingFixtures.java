@@ -0,0 +1,76 @@
+package com.ilichev.vladimir.paginationadapter;
+
+import android.support.v7.util.ListUpdateCallback;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Fixtures shared by adapter tests: pages of items that are their own offsets and update callbacks
+ * that replace {@code RecyclerView} notifications.
+ */
+final class PagingFixtures {
+
+    /**
+     * Drops notifications, for adapters driven without RecyclerView.
+     */
+    static final ListUpdateCallback NO_UPDATES = new ListUpdateCallback() {
+        @Override
+        public void onInserted(int position, int count) {
+        }
+
+        @Override
+        public void onRemoved(int position, int count) {
+        }
+
+        @Override
+        public void onMoved(int fromPosition, int toPosition) {
+        }
+
+        @Override
+        public void onChanged(int position, int count, Object payload) {
+        }
+    };
+
+    private PagingFixtures() {
+    }
+
+    /**
+     * @return Page of items from {@code from} to {@code from + count - 1}.
+     */
+    static List<Long> page(long from, int count) {
+        List<Long> items = new ArrayList<>();
+        for (long i = from; i < from + count; i++) {
+            items.add(i);
+        }
+        return items;
+    }
+
+    /**
+     * Records notifications as strings like {@code "inserted 0 20"}.
+     */
+    static final class RecordingCallback implements ListUpdateCallback {
+
+        final List<String> events = new ArrayList<>();
+
+        @Override
+        public void onInserted(int position, int count) {
+            events.add("inserted " + position + " " + count);
+        }
+
+        @Override
+        public void onRemoved(int position, int count) {
+            events.add("removed " + position + " " + count);
+        }
+
+        @Override
+        public void onMoved(int fromPosition, int toPosition) {
+            events.add("moved " + fromPosition + " " + toPosition);
+        }
+
+        @Override
+        public void onChanged(int position, int count, Object payload) {
+            events.add("changed " + position + " " + count);
+        }
+    }
+}
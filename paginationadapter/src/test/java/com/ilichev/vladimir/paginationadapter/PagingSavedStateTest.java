@@ -0,0 +1,140 @@
+package com.ilichev.vladimir.paginationadapter;
+
+import android.os.Bundle;
+import android.support.annotation.NonNull;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+public class PagingSavedStateTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private final PageSerializer<Long> serializer = new PageSerializer<Long>() {
+        @Override
+        public void write(@NonNull List<Long> items, @NonNull DataOutput out) throws IOException {
+            out.writeInt(items.size());
+            for (long item : items) {
+                out.writeLong(item);
+            }
+        }
+
+        @NonNull
+        @Override
+        public List<Long> read(@NonNull DataInput in) throws IOException {
+            int size = in.readInt();
+            List<Long> items = new ArrayList<>(size);
+            for (int i = 0; i < size; i++) {
+                items.add(in.readLong());
+            }
+            return items;
+        }
+    };
+
+    @Test
+    public void spillFile_replacedByNextSaveAndDeletedByReset() throws IOException {
+        List<Long> items = new ArrayList<>();
+        for (long i = 0; i < 10000; i++) {
+            items.add(i);
+        }
+        PaginationAdapter<Long> adapter = new PaginationAdapter<Long>(items,
+                new PagingConfig.Builder().setPageSize(20).build()) {
+        };
+        File directory = folder.newFolder();
+
+        adapter.saveState(new Bundle(), serializer, directory);
+        adapter.saveState(new Bundle(), serializer, directory);
+        assertEquals(1, directory.listFiles().length);
+
+        adapter.reset();
+        assertEquals(0, directory.listFiles().length);
+    }
+
+    @Test
+    public void roundTrip() throws IOException {
+        PagingSavedState<Long> state = state(Arrays.asList(1L, 2L, 3L, 4L, 5L));
+        state.footerState = PageState.REACHED_LIMIT;
+
+        PagingSavedState<Long> restored = PagingSavedState.read(serializer, state.write(serializer));
+
+        assertEquals(2, restored.pageSize);
+        assertEquals(4, restored.distance);
+        assertEquals(PageState.REACHED_LIMIT, restored.footerState);
+        assertEquals(3, restored.anchorPosition);
+        assertEquals(-15, restored.anchorOffset);
+        assertEquals(state.items, restored.items);
+    }
+
+    @Test
+    public void droppedPagesStayPlaceholders() throws IOException {
+        PagingSavedState<Long> state = state(Arrays.asList(null, null, 3L, 4L, null, null, 7L));
+
+        PagingSavedState<Long> restored = PagingSavedState.read(serializer, state.write(serializer));
+
+        assertEquals(7, restored.items.size());
+        assertNull(restored.items.get(0));
+        assertNull(restored.items.get(5));
+        assertEquals(state.items, restored.items);
+    }
+
+    @Test
+    public void emptyList() throws IOException {
+        PagingSavedState<Long> state = state(new ArrayList<>());
+
+        assertEquals(0, PagingSavedState.read(serializer, state.write(serializer)).items.size());
+    }
+
+    @Test
+    public void nextKeyRoundTrip() throws IOException {
+        PagingSavedState<Long> state = state(Arrays.asList(1L, 2L));
+        state.nextKey = "cursor";
+        assertEquals("cursor", PagingSavedState.read(serializer, state.write(serializer)).nextKey);
+
+        state.nextKey = 42L;
+        assertEquals(42L, PagingSavedState.read(serializer, state.write(serializer)).nextKey);
+    }
+
+    @Test(expected = IOException.class)
+    public void unsupportedKey() throws IOException {
+        PagingSavedState<Long> state = state(Arrays.asList(1L, 2L));
+        state.nextKey = new Object();
+        state.write(serializer);
+    }
+
+    @Test(expected = IOException.class)
+    public void unknownVersion() throws IOException {
+        byte[] bytes = state(Arrays.asList(1L, 2L)).write(serializer);
+        bytes[3]++;
+        PagingSavedState.read(serializer, bytes);
+    }
+
+    @Test(expected = IOException.class)
+    public void truncatedData() throws IOException {
+        byte[] bytes = state(Arrays.asList(1L, 2L, 3L)).write(serializer);
+        PagingSavedState.read(serializer, Arrays.copyOf(bytes, bytes.length - 4));
+    }
+
+    private static PagingSavedState<Long> state(List<Long> items) {
+        PagingSavedState<Long> state = new PagingSavedState<>();
+        state.pageSize = 2;
+        state.distance = 4;
+        state.footerState = PageState.LOADED;
+        state.anchorPosition = 3;
+        state.anchorOffset = -15;
+        state.items = items;
+        return state;
+    }
+}
@@ -0,0 +1,479 @@
+package com.ilichev.vladimir.paginationadapter;
+
+import android.support.annotation.NonNull;
+import android.support.v7.util.ListUpdateCallback;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+
+/**
+ * Deterministic simulator of {@link PaginationAdapter} on the JVM. Adapter is driven by {@link ScrollScript}
+ * in virtual time against {@link SimulatedSource}, responses are delivered in order of their virtual time.
+ * The same seed always gives the same run. After every event simulator checks invariants:
+ * adapter data is exactly the dataset prefix (no duplicates, no gaps), notifications match item count,
+ * pages are requested once and in order, nothing is requested after the limit, the list does not end early
+ * and progress footer is never shown without response on the way.
+ * Work that adapter posts to the main thread runs as event at current virtual time, background work runs right away.
+ */
+final class PagingSimulator {
+
+    static final int TICK_MILLIS = 16;
+    private static final int FULL_CHECK_TICKS = 4096;
+
+    /**
+     * How responses are given to adapter.
+     */
+    enum ResultMode {
+        // setData(PageRequest, List) and setError(PageRequest)
+        HANDLE,
+        // setData(int, List) and setError(int)
+        DISTANCE,
+        // setData(List) and setError()
+        FIFO
+    }
+
+    static final class Config {
+
+        long seed = 1;
+        int ticks = 100000;
+        ResultMode resultMode = ResultMode.HANDLE;
+
+        int pageSize = 20;
+        int loadThreshold = 2;
+        int dataLimit = Integer.MAX_VALUE;
+        int windowSize = Integer.MAX_VALUE;
+        int maxConcurrentRequests = 1;
+
+        int totalItems = 50000;
+        long medianLatency = 300;
+        double latencySpread = 0.7;
+        double tailRate = 0.01;
+        double failureRate = 0.05;
+        double shortPageRate = 0;
+
+        int viewportItems = 8;
+        double flingVelocity = 3;
+        double refreshRate = 0.005;
+        long retryDelay = 1000;
+
+        Config seed(long seed) {
+            this.seed = seed;
+            return this;
+        }
+
+        Config ticks(int ticks) {
+            this.ticks = ticks;
+            return this;
+        }
+
+        Config resultMode(ResultMode resultMode) {
+            this.resultMode = resultMode;
+            return this;
+        }
+
+        Config maxConcurrentRequests(int maxConcurrentRequests) {
+            this.maxConcurrentRequests = maxConcurrentRequests;
+            return this;
+        }
+
+        Config windowSize(int windowSize) {
+            this.windowSize = windowSize;
+            return this;
+        }
+
+        Config dataLimit(int dataLimit) {
+            this.dataLimit = dataLimit;
+            return this;
+        }
+
+        Config totalItems(int totalItems) {
+            this.totalItems = totalItems;
+            return this;
+        }
+
+        Config failureRate(double failureRate) {
+            this.failureRate = failureRate;
+            return this;
+        }
+
+        Config shortPageRate(double shortPageRate) {
+            this.shortPageRate = shortPageRate;
+            return this;
+        }
+
+        Config refreshRate(double refreshRate) {
+            this.refreshRate = refreshRate;
+            return this;
+        }
+
+        Config flingVelocity(double flingVelocity) {
+            this.flingVelocity = flingVelocity;
+            return this;
+        }
+    }
+
+    private final Config config;
+    private final SimulatedSource source;
+    private final ScrollScript script;
+    private final SimulationReport report;
+
+    private final List<Long> data = new ArrayList<>();
+    private final PaginationAdapter<Long> adapter;
+
+    private final PriorityQueue<Event> events = new PriorityQueue<>();
+    private long now;
+    private long tick;
+    private long sequence;
+
+    // User position, last visible adapter position with fraction of item scrolled
+    private double position = -1;
+    private int shadowItemCount;
+
+    // Append requests the adapter waits for by distance, and requests with response on the way
+    private final Map<Integer, PageRequest> appends = new HashMap<>();
+    private final Set<PageRequest> responding = Collections.newSetFromMap(new IdentityHashMap<>());
+    private final Map<PageRequest, Long> requestTimes = new IdentityHashMap<>();
+    // Ends of the list caused by pages that were cut short
+    private final Set<Integer> shortEnds = new HashSet<>();
+
+    private int refreshes;
+    private boolean firstPageLoading;
+    private long firstPageRequested;
+    private long retryAt;
+    private PageState prevFooterState = PageState.LOADED;
+
+    PagingSimulator(@NonNull Config config) {
+        this.config = config;
+        this.source = new SimulatedSource(config.seed, config.totalItems, config.medianLatency, config.latencySpread,
+                config.tailRate, config.failureRate, config.shortPageRate);
+        this.script = new ScrollScript(config.seed * 31 + 7, config.flingVelocity, config.refreshRate);
+        this.report = new SimulationReport(config.seed);
+
+        PagingConfig pagingConfig = new PagingConfig.Builder()
+                .setPageSize(config.pageSize)
+                .setLoadThreshold(config.loadThreshold)
+                .setDataLimit(config.dataLimit)
+                .setWindowSize(config.windowSize)
+                .setMaxConcurrentRequests(config.maxConcurrentRequests)
+                .build();
+        adapter = new PaginationAdapter<Long>(data, pagingConfig) {
+        };
+        adapter.setUpdateTarget(new CheckingUpdateCallback());
+        adapter.setExecutors(action -> schedule(0, action), Runnable::run);
+        adapter.setLoadNextPartCallback(new PaginationAdapter.LoadNextPartCallback() {
+            @Override
+            public void loadNextPage(int distance, int pageSize) {
+                throw new AssertionError("Adapter must pass request handle");
+            }
+
+            @Override
+            public void loadNextPage(int distance, int pageSize, @NonNull PageRequest request) {
+                onRequested(distance, pageSize, request);
+            }
+        });
+    }
+
+    static SimulationReport run(@NonNull Config config) {
+        return new PagingSimulator(config).run();
+    }
+
+    SimulationReport run() {
+        long start = System.nanoTime();
+        firstPageRequested = now;
+        loadFirstPage();
+        for (tick = 0; tick < config.ticks; tick++) {
+            now += TICK_MILLIS;
+            deliverDue();
+            tapRetry();
+            scroll();
+            check();
+            report.events++;
+        }
+        report.ticks = config.ticks;
+        report.wallNanos = System.nanoTime() - start;
+        return report;
+    }
+
+    private void loadFirstPage() {
+        // The first page is loaded by application without request, as in the sample
+        final int refresh = refreshes;
+        firstPageLoading = true;
+        final boolean failure = source.nextFailure();
+        final List<Long> items = source.load(0, config.pageSize);
+        schedule(source.nextLatency(), () -> {
+            if (refresh != refreshes) {
+                // Application ignores results loaded before refresh
+                return;
+            }
+            if (failure) {
+                report.failures++;
+                schedule(config.retryDelay, this::loadFirstPage);
+                return;
+            }
+            noteShortPage(0, items);
+            firstPageLoading = false;
+            report.pages++;
+            adapter.setData(items);
+        });
+    }
+
+    private void onRequested(int distance, int pageSize, final PageRequest request) {
+        report.events++;
+        if (request.getType() == PageRequest.Type.APPEND) {
+            if (adapter.getFooterState() == PageState.REACHED_LIMIT) {
+                report.violation("request after limit", tick, "distance " + distance);
+            }
+            if (distance < data.size()) {
+                report.violation("duplicate offset", tick, "distance " + distance + " is already loaded, size " + data.size());
+            }
+            PageRequest inFlight = appends.get(distance);
+            if (inFlight != null && inFlight != request && !inFlight.isCancelled()) {
+                report.violation("duplicate offset", tick, "distance " + distance + " is already requested");
+            }
+            PageRequest previous = appends.get(distance - pageSize);
+            if (distance > data.size() && (previous == null || previous.isCancelled())) {
+                report.violation("gap", tick, "distance " + distance + " requested before " + (distance - pageSize)
+                        + ", size " + data.size());
+            }
+            appends.put(distance, request);
+        } else if (request.getType() == PageRequest.Type.RESTORE) {
+            if (distance >= data.size() || data.get(distance) != null) {
+                report.violation("restore of loaded page", tick, "distance " + distance);
+            }
+        }
+
+        requestTimes.put(request, now);
+        responding.add(request);
+        final boolean failure = source.nextFailure();
+        final List<Long> items = source.load(distance, pageSize);
+        schedule(source.nextLatency(), () -> respond(request, failure, items));
+    }
+
+    private void respond(PageRequest request, boolean failure, List<Long> items) {
+        responding.remove(request);
+        Long requested = requestTimes.remove(request);
+        if (requested != null) {
+            report.latency(now - requested);
+        }
+        if (failure) {
+            report.failures++;
+            switch (config.resultMode) {
+                case HANDLE:
+                    adapter.setError(request);
+                    break;
+                case DISTANCE:
+                    adapter.setError(request.getDistance());
+                    break;
+                case FIFO:
+                    adapter.setError();
+                    break;
+            }
+            return;
+        }
+
+        report.pages++;
+        if (request.getType() == PageRequest.Type.APPEND && !request.isCancelled()) {
+            noteShortPage(request.getDistance(), items);
+        }
+        switch (config.resultMode) {
+            case HANDLE:
+                adapter.setData(request, items);
+                break;
+            case DISTANCE:
+                adapter.setData(request.getDistance(), items);
+                break;
+            case FIFO:
+                adapter.setData(items);
+                break;
+        }
+    }
+
+    private void noteShortPage(int distance, List<Long> items) {
+        if (items.size() < config.pageSize && distance + items.size() < source.getTotalItems()) {
+            shortEnds.add(distance + items.size());
+        }
+    }
+
+    private void tapRetry() {
+        if (adapter.getFooterState() != PageState.ERROR) {
+            retryAt = 0;
+            return;
+        }
+        if (retryAt == 0) {
+            retryAt = now + config.retryDelay;
+        } else if (now >= retryAt) {
+            retryAt = 0;
+            report.retries++;
+            adapter.retry();
+        }
+    }
+
+    private void scroll() {
+        int segment = script.next();
+        if (segment == ScrollScript.REFRESH) {
+            refresh();
+            return;
+        }
+
+        int itemCount = adapter.getItemCount();
+        if (itemCount == 0) {
+            position = -1;
+            adapter.onVisibleRangeChanged(-1, -1, 1, 0, false);
+            return;
+        }
+
+        double min = Math.min(config.viewportItems - 1, itemCount - 1);
+        double target = Math.max(min, Math.min(itemCount - 1, position + script.delta()));
+        boolean moved = target != position;
+        position = target;
+
+        int last = (int) position;
+        int first = Math.max(0, last - config.viewportItems + 1);
+        adapter.onVisibleRangeChanged(first, last, 1, itemCount, moved);
+    }
+
+    private void refresh() {
+        report.resets++;
+        refreshes++;
+        appends.clear();
+        shortEnds.clear();
+        position = -1;
+        firstPageRequested = now;
+        // Application does not wait for its own first page anymore, adapter requests it after reset
+        firstPageLoading = false;
+        adapter.reset();
+        adapter.loadFirstPage();
+    }
+
+    private void check() {
+        if (shadowItemCount != adapter.getItemCount()) {
+            report.violation("notification mismatch", tick, "notified " + shadowItemCount
+                    + " items, adapter has " + adapter.getItemCount());
+            shadowItemCount = adapter.getItemCount();
+        }
+
+        PageState footerState = adapter.getFooterState();
+        if (footerState == PageState.LOADING && !hasAppendOnTheWay()) {
+            report.violation("stuck LOADING", tick, "no response on the way, size " + data.size());
+        }
+        if (footerState == PageState.LOADING && (int) position == adapter.getItemCount() - 1) {
+            report.stallMillis += TICK_MILLIS;
+        }
+        if (footerState == PageState.REACHED_LIMIT && prevFooterState != PageState.REACHED_LIMIT) {
+            int end = Math.min(source.getTotalItems(), config.dataLimit);
+            if (data.size() < end && !shortEnds.contains(data.size())) {
+                report.violation("ended early", tick, "size " + data.size() + ", expected " + end);
+            }
+        }
+        prevFooterState = footerState;
+
+        if (firstPageLoading || data.isEmpty()) {
+            return;
+        }
+        if (firstPageRequested >= 0) {
+            report.firstPageMillis += now - firstPageRequested;
+            report.firstPages++;
+            firstPageRequested = -1;
+        }
+        if (tick % FULL_CHECK_TICKS == 0) {
+            checkRange(0, data.size());
+        }
+    }
+
+    private boolean hasAppendOnTheWay() {
+        if (firstPageLoading) {
+            return true;
+        }
+        for (PageRequest request : appends.values()) {
+            if (!request.isCancelled() && responding.contains(request)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Items must be their own offsets, placeholders are allowed only in windowed mode.
+     */
+    private void checkRange(int from, int to) {
+        for (int i = Math.max(0, from); i < Math.min(to, data.size()); i++) {
+            Long item = data.get(i);
+            if (item == null) {
+                if (config.windowSize == Integer.MAX_VALUE) {
+                    report.violation("placeholder", tick, "position " + i);
+                }
+            } else if (item != i) {
+                report.violation("content", tick, "position " + i + " holds item " + item);
+                return;
+            }
+        }
+    }
+
+    private void deliverDue() {
+        Event event;
+        while ((event = events.peek()) != null && event.time <= now) {
+            events.poll();
+            event.action.run();
+            report.events++;
+        }
+    }
+
+    private void schedule(long delay, Runnable action) {
+        events.add(new Event(now + delay, sequence++, action));
+    }
+
+    private final class CheckingUpdateCallback implements ListUpdateCallback {
+
+        @Override
+        public void onInserted(int position, int count) {
+            report.notifications++;
+            shadowItemCount += count;
+            checkRange(position, position + count);
+        }
+
+        @Override
+        public void onRemoved(int position, int count) {
+            report.notifications++;
+            shadowItemCount -= count;
+        }
+
+        @Override
+        public void onMoved(int fromPosition, int toPosition) {
+            report.notifications++;
+        }
+
+        @Override
+        public void onChanged(int position, int count, Object payload) {
+            report.notifications++;
+            checkRange(position, position + count);
+        }
+    }
+
+    private static final class Event implements Comparable<Event> {
+
+        final long time;
+        final long sequence;
+        final Runnable action;
+
+        Event(long time, long sequence, Runnable action) {
+            this.time = time;
+            this.sequence = sequence;
+            this.action = action;
+        }
+
+        @Override
+        public int compareTo(@NonNull Event o) {
+            if (time != o.time) {
+                return time < o.time ? -1 : 1;
+            }
+            return Long.compare(sequence, o.sequence);
+        }
+    }
+}
@@ -0,0 +1,85 @@
+package com.ilichev.vladimir.paginationadapter;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class PagingSimulatorTest {
+
+    private static final int TICKS = 100000;
+
+    @Test
+    public void singleRequest_noViolations() {
+        assertNoViolations(new PagingSimulator.Config().seed(1).ticks(TICKS));
+    }
+
+    @Test
+    public void concurrentRequestsWithShortPages_noViolations() {
+        assertNoViolations(new PagingSimulator.Config()
+                .seed(2)
+                .ticks(TICKS)
+                .maxConcurrentRequests(4)
+                .shortPageRate(0.002)
+                .flingVelocity(8));
+    }
+
+    @Test
+    public void concurrentRequestsByDistance_noViolations() {
+        assertNoViolations(new PagingSimulator.Config()
+                .seed(3)
+                .ticks(TICKS)
+                .resultMode(PagingSimulator.ResultMode.DISTANCE)
+                .maxConcurrentRequests(3));
+    }
+
+    @Test
+    public void windowedMode_noViolations() {
+        assertNoViolations(new PagingSimulator.Config()
+                .seed(4)
+                .ticks(TICKS)
+                .windowSize(3)
+                .maxConcurrentRequests(2)
+                .failureRate(0.2));
+    }
+
+    @Test
+    public void dataLimit_noViolations() {
+        assertNoViolations(new PagingSimulator.Config()
+                .seed(5)
+                .ticks(TICKS)
+                .dataLimit(1000)
+                .maxConcurrentRequests(3)
+                .flingVelocity(8));
+    }
+
+    @Test
+    public void sameSeed_sameRun() {
+        PagingSimulator.Config config = new PagingSimulator.Config().seed(6).ticks(TICKS / 4).maxConcurrentRequests(3);
+        SimulationReport first = PagingSimulator.run(config);
+        SimulationReport second = PagingSimulator.run(config);
+
+        assertEquals(first.events, second.events);
+        assertEquals(first.pages, second.pages);
+        assertEquals(first.notifications, second.notifications);
+        assertEquals(first.stallMillis, second.stallMillis);
+    }
+
+    @Test
+    public void untaggedResultsOfConcurrentRequests_detected() {
+        // Results set in order of arrival can not be matched with out of order requests
+        SimulationReport report = PagingSimulator.run(new PagingSimulator.Config()
+                .seed(7)
+                .ticks(TICKS / 4)
+                .resultMode(PagingSimulator.ResultMode.FIFO)
+                .maxConcurrentRequests(3));
+
+        assertTrue(report.getViolations().containsKey("content"));
+    }
+
+    private static void assertNoViolations(PagingSimulator.Config config) {
+        SimulationReport report = PagingSimulator.run(config);
+        assertTrue(report.toString(), report.violationCount() == 0);
+        assertTrue(report.pages > 0);
+    }
+}
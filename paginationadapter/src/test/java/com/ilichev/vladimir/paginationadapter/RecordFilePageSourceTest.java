@@ -0,0 +1,165 @@
+package com.ilichev.vladimir.paginationadapter;
+
+import android.support.annotation.NonNull;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class RecordFilePageSourceTest {
+
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private RecordFilePageSource<Integer> fixedSource;
+
+    @Before
+    public void setUp() throws IOException {
+        File file = folder.newFile("ints");
+        try (DataOutputStream out = new DataOutputStream(new FileOutputStream(file))) {
+            for (int i = 0; i < 100; i++) {
+                out.writeInt(i);
+            }
+        }
+        fixedSource = new RecordFilePageSource<>(file, null, 4, record -> record.getInt(), Runnable::run);
+    }
+
+    @Test
+    public void fixedRecords_pageStartsAtDistance() throws IOException {
+        RecordingSubscriber<Integer> subscriber = subscribe(fixedSource, 20, 10);
+
+        assertEquals(100, fixedSource.getCount());
+        assertEquals(Arrays.asList(20, 21, 22, 23, 24, 25, 26, 27, 28, 29), subscriber.items);
+        assertTrue(subscriber.completed);
+    }
+
+    @Test
+    public void lastPage_completesWithLessItems() {
+        RecordingSubscriber<Integer> subscriber = subscribe(fixedSource, 95, 10);
+
+        assertEquals(Arrays.asList(95, 96, 97, 98, 99), subscriber.items);
+        assertTrue(subscriber.completed);
+    }
+
+    @Test
+    public void itemsEmittedOnlyOnDemand() {
+        RecordingSubscriber<Integer> subscriber = new RecordingSubscriber<>(3);
+        fixedSource.subscribe(new PageRequest(0, 10, 0, PageRequest.Type.APPEND), subscriber);
+
+        assertEquals(Arrays.asList(0, 1, 2), subscriber.items);
+        assertFalse(subscriber.completed);
+
+        subscriber.subscription.request(7);
+
+        assertEquals(10, subscriber.items.size());
+        assertTrue(subscriber.completed);
+    }
+
+    @Test
+    public void cancelledPage_emitsNothingMore() {
+        RecordingSubscriber<Integer> subscriber = new RecordingSubscriber<>(3);
+        fixedSource.subscribe(new PageRequest(0, 10, 0, PageRequest.Type.APPEND), subscriber);
+
+        subscriber.subscription.cancel();
+        subscriber.subscription.request(7);
+
+        assertEquals(3, subscriber.items.size());
+        assertFalse(subscriber.completed);
+    }
+
+    @Test
+    public void variableRecords_decodedByIndex() throws IOException {
+        File data = folder.newFile("strings");
+        File index = folder.newFile("index");
+        try (FileOutputStream dataOut = new FileOutputStream(data);
+             DataOutputStream indexOut = new DataOutputStream(new FileOutputStream(index))) {
+            long offset = 0;
+            for (int i = 0; i < 30; i++) {
+                byte[] bytes = ("item " + i).getBytes(UTF_8);
+                indexOut.writeLong(offset);
+                dataOut.write(bytes);
+                offset += bytes.length;
+            }
+        }
+        RecordFilePageSource<String> source = new RecordFilePageSource<>(data, index, 0, record -> {
+            byte[] bytes = new byte[record.remaining()];
+            record.get(bytes);
+            return new String(bytes, UTF_8);
+        }, Runnable::run);
+
+        RecordingSubscriber<String> subscriber = subscribe(source, 25, 10);
+
+        assertEquals(30, source.getCount());
+        assertEquals(Arrays.asList("item 25", "item 26", "item 27", "item 28", "item 29"), subscriber.items);
+        assertTrue(subscriber.completed);
+    }
+
+    @Test
+    public void corruptedFile_reportsError() throws IOException {
+        File file = folder.newFile("broken");
+        try (FileOutputStream out = new FileOutputStream(file)) {
+            out.write(new byte[7]);
+        }
+        RecordFilePageSource<Integer> source = new RecordFilePageSource<>(file, null, 4, record -> record.getInt(), Runnable::run);
+
+        RecordingSubscriber<Integer> subscriber = subscribe(source, 0, 10);
+
+        assertTrue(subscriber.error instanceof IOException);
+    }
+
+    private static <E> RecordingSubscriber<E> subscribe(RecordFilePageSource<E> source, int distance, int pageSize) {
+        RecordingSubscriber<E> subscriber = new RecordingSubscriber<>(pageSize);
+        source.subscribe(new PageRequest(distance, pageSize, 0, PageRequest.Type.APPEND), subscriber);
+        return subscriber;
+    }
+
+    private static final class RecordingSubscriber<E> implements PageSource.Subscriber<E> {
+
+        final List<E> items = new ArrayList<>();
+        final long demand;
+        PageSource.Subscription subscription;
+        boolean completed;
+        Throwable error;
+
+        RecordingSubscriber(long demand) {
+            this.demand = demand;
+        }
+
+        @Override
+        public void onSubscribe(@NonNull PageSource.Subscription subscription) {
+            this.subscription = subscription;
+            subscription.request(demand);
+        }
+
+        @Override
+        public void onNext(@NonNull E item) {
+            items.add(item);
+        }
+
+        @Override
+        public void onError(@NonNull Throwable error) {
+            this.error = error;
+        }
+
+        @Override
+        public void onComplete() {
+            completed = true;
+        }
+    }
+}
@@ -0,0 +1,122 @@
+package com.ilichev.vladimir.paginationadapter;
+
+import android.support.annotation.NonNull;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static com.ilichev.vladimir.paginationadapter.PagingFixtures.page;
+import static org.junit.Assert.assertEquals;
+
+public class RefreshTest {
+
+    private static final int PAGE_SIZE = 10;
+
+    private final List<Long> data = new ArrayList<>();
+    private final List<Integer> requested = new ArrayList<>();
+    private final PagingFixtures.RecordingCallback updates = new PagingFixtures.RecordingCallback();
+    private final List<String> notifications = updates.events;
+    private PaginationAdapter<Long> adapter;
+
+    @Before
+    public void setUp() {
+        adapter = new PaginationAdapter<Long>(data, new PagingConfig.Builder().setPageSize(PAGE_SIZE).build()) {
+        };
+        adapter.setUpdateTarget(updates);
+        adapter.setLoadNextPartCallback((distance, pageSize) -> requested.add(distance));
+        for (int page = 0; page < 6; page++) {
+            adapter.setData(page(page * PAGE_SIZE, PAGE_SIZE));
+        }
+        requested.clear();
+        notifications.clear();
+    }
+
+    @Test
+    public void reloadsPagesAroundViewportAndTrimsTail() {
+        adapter.onVisibleRangeChanged(22, 27, 1, adapter.getItemCount(), false);
+        adapter.refresh();
+
+        assertEquals(Arrays.asList(10, 20, 30), requested);
+        assertEquals(Arrays.asList("removed 40 20"), notifications);
+        assertEquals(40, data.size());
+        assertEquals(39L, (long) data.get(39));
+    }
+
+    @Test
+    public void pagesBeforeViewportAreReloadedWhenVisible() {
+        adapter.onVisibleRangeChanged(32, 37, 1, adapter.getItemCount(), false);
+        adapter.refresh();
+        assertEquals(Arrays.asList(20, 30, 40), requested);
+
+        adapter.onVisibleRangeChanged(12, 17, 1, adapter.getItemCount(), true);
+        assertEquals(Arrays.asList(20, 30, 40, 0, 10), requested);
+
+        // Reloaded only once
+        adapter.onVisibleRangeChanged(2, 7, 1, adapter.getItemCount(), true);
+        assertEquals(5, requested.size());
+    }
+
+    @Test
+    public void unchangedPageIsNotTouched() {
+        adapter.onVisibleRangeChanged(2, 7, 1, adapter.getItemCount(), false);
+        adapter.refresh();
+        notifications.clear();
+
+        adapter.setData(0, page(0, PAGE_SIZE));
+        adapter.setData(10, page(10, PAGE_SIZE));
+
+        assertEquals(0, notifications.size());
+        assertEquals(PageState.LOADED, adapter.getFooterState());
+    }
+
+    @Test
+    public void unchangedVersionIsNotRebound() {
+        final List<PageRequest> handles = new ArrayList<>();
+        adapter.setLoadNextPartCallback(new PaginationAdapter.LoadNextPartCallback() {
+            @Override
+            public void loadNextPage(int distance, int pageSize) {
+            }
+
+            @Override
+            public void loadNextPage(int distance, int pageSize, @NonNull PageRequest request) {
+                handles.add(request);
+            }
+        });
+        adapter.setExecutors(Runnable::run, Runnable::run);
+        adapter.onVisibleRangeChanged(2, 7, 1, adapter.getItemCount(), false);
+        adapter.refresh();
+        adapter.setData(handles.get(0), page(0, PAGE_SIZE), "v1");
+        notifications.clear();
+
+        // The same version is not compared, even though items differ
+        adapter.onVisibleRangeChanged(2, 7, 1, adapter.getItemCount(), false);
+        adapter.refresh();
+        adapter.setData(handles.get(handles.size() - 2), page(100, PAGE_SIZE), "v1");
+        assertEquals(0, notifications.size());
+
+        adapter.onVisibleRangeChanged(2, 7, 1, adapter.getItemCount(), false);
+        adapter.refresh();
+        adapter.setData(handles.get(handles.size() - 2), page(100, PAGE_SIZE), "v2");
+        assertEquals(100L, (long) data.get(0));
+    }
+
+    @Test
+    public void loadingContinuesAfterTrimmedTail() {
+        adapter.setData(page(60, 5));
+        assertEquals(PageState.REACHED_LIMIT, adapter.getFooterState());
+
+        adapter.onVisibleRangeChanged(2, 7, 1, adapter.getItemCount(), false);
+        adapter.refresh();
+        adapter.setData(0, page(0, PAGE_SIZE));
+        adapter.setData(10, page(10, PAGE_SIZE));
+        requested.clear();
+
+        adapter.onVisibleRangeChanged(12, 19, 1, adapter.getItemCount(), true);
+        assertEquals(Arrays.asList(20), requested);
+    }
+
+}
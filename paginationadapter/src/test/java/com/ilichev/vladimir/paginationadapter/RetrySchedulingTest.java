@@ -0,0 +1,85 @@
+package com.ilichev.vladimir.paginationadapter;
+
+import android.support.annotation.NonNull;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static com.ilichev.vladimir.paginationadapter.PagingFixtures.page;
+import static org.junit.Assert.assertEquals;
+
+public class RetrySchedulingTest {
+
+    private static final int PAGE_SIZE = 10;
+
+    private final List<Long> data = new ArrayList<>();
+    private final List<Integer> requested = new ArrayList<>();
+    private final List<Runnable> delayed = new ArrayList<>();
+    private final List<Long> delays = new ArrayList<>();
+    private PaginationAdapter<Long> adapter;
+
+    @Before
+    public void setUp() {
+        RetryPolicy policy = new RetryPolicy.Builder()
+                .setMaxAttempts(3)
+                .setInitialDelayMillis(100)
+                .setJitter(0)
+                .build();
+        adapter = new PaginationAdapter<Long>(data, new PagingConfig.Builder()
+                .setPageSize(PAGE_SIZE)
+                .setRetryPolicy(policy)
+                .build()) {
+        };
+        adapter.setUpdateTarget(PagingFixtures.NO_UPDATES);
+        adapter.setRetryExecutor(new PagingExecutors.DelayedExecutor() {
+            @Override
+            public void executeDelayed(@NonNull Runnable action, long delayMillis) {
+                delayed.add(action);
+                delays.add(delayMillis);
+            }
+
+            @Override
+            public void cancel(@NonNull Runnable action) {
+                delayed.remove(action);
+            }
+        });
+        adapter.setLoadNextPartCallback((distance, pageSize) -> requested.add(distance));
+    }
+
+    @Test
+    public void failedPage_isRequestedAgainAfterDelay() {
+        adapter.loadFirstPage();
+        adapter.setError(0);
+        assertEquals(Arrays.asList(100L), delays);
+        assertEquals(PageState.LOADING, adapter.getFooterState());
+
+        runDelayed();
+        assertEquals(Arrays.asList(0, 0), requested);
+
+        adapter.setData(0, page(0, PAGE_SIZE));
+        assertEquals(PAGE_SIZE, data.size());
+    }
+
+    @Test
+    public void reset_cancelsPendingRetry() {
+        adapter.loadFirstPage();
+        adapter.setError(0);
+        assertEquals(1, delayed.size());
+
+        adapter.reset();
+        assertEquals(0, delayed.size());
+        assertEquals(Arrays.asList(0), requested);
+    }
+
+    private void runDelayed() {
+        List<Runnable> actions = new ArrayList<>(delayed);
+        delayed.clear();
+        for (Runnable action : actions) {
+            action.run();
+        }
+    }
+}
@@ -0,0 +1,84 @@
+package com.ilichev.vladimir.paginationadapter;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class RetryTrackerTest {
+
+    private static RetryPolicy.Builder exact() {
+        return new RetryPolicy.Builder()
+                .setInitialDelayMillis(100)
+                .setMaxDelayMillis(1000)
+                .setMultiplier(2)
+                .setJitter(0);
+    }
+
+    @Test
+    public void delayGrowsExponentiallyUpToMax() {
+        RetryTracker tracker = new RetryTracker(exact().setMaxAttempts(10).setCircuitBreaker(0, 0).build(), new Random(1));
+
+        assertEquals(100, tracker.onFailure(1, 0));
+        assertEquals(200, tracker.onFailure(2, 0));
+        assertEquals(400, tracker.onFailure(3, 0));
+        assertEquals(800, tracker.onFailure(4, 0));
+        assertEquals(1000, tracker.onFailure(5, 0));
+    }
+
+    @Test
+    public void jitterOnlyShortensDelay() {
+        RetryPolicy policy = exact().setJitter(0.5).build();
+        Random random = new Random(7);
+        for (int i = 0; i < 1000; i++) {
+            long delay = policy.getDelayMillis(2, random.nextDouble());
+            assertTrue(delay >= 100 && delay <= 200);
+        }
+    }
+
+    @Test
+    public void givesUpAfterMaxAttempts() {
+        RetryTracker tracker = new RetryTracker(exact().setMaxAttempts(3).setCircuitBreaker(0, 0).build(), new Random(1));
+
+        assertEquals(100, tracker.onFailure(1, 0));
+        assertEquals(200, tracker.onFailure(2, 0));
+        assertEquals(RetryTracker.GIVE_UP, tracker.onFailure(3, 0));
+    }
+
+    @Test
+    public void breakerOpensAfterFailuresInRow() {
+        RetryTracker tracker = new RetryTracker(exact().setMaxAttempts(10).setCircuitBreaker(3, 5000).build(), new Random(1));
+
+        tracker.onFailure(1, 0);
+        tracker.onFailure(1, 10);
+        assertEquals(RetryTracker.GIVE_UP, tracker.onFailure(1, 20));
+        assertTrue(tracker.isOpen(4000));
+        assertEquals(RetryTracker.GIVE_UP, tracker.onFailure(1, 4000));
+
+        // Half open: the first failure after open time opens breaker again
+        assertFalse(tracker.isOpen(5020));
+        assertEquals(RetryTracker.GIVE_UP, tracker.onFailure(1, 5020));
+        assertTrue(tracker.isOpen(5021));
+    }
+
+    @Test
+    public void successClosesBreaker() {
+        RetryTracker tracker = new RetryTracker(exact().setMaxAttempts(10).setCircuitBreaker(2, 5000).build(), new Random(1));
+
+        tracker.onFailure(1, 0);
+        tracker.onFailure(1, 0);
+        assertTrue(tracker.isOpen(1));
+
+        tracker.onSuccess();
+        assertFalse(tracker.isOpen(1));
+        assertEquals(100, tracker.onFailure(1, 1));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void jitterOutOfRange() {
+        new RetryPolicy.Builder().setJitter(1.5);
+    }
+}
@@ -0,0 +1,78 @@
+package com.ilichev.vladimir.paginationadapter;
+
+import java.util.Random;
+
+/**
+ * Seeded model of user scrolling for {@link PagingSimulator}. User alternates segments of reading,
+ * flinging down, flinging back, idling, and sometimes pulls to refresh. Every tick gives scroll delta in items.
+ */
+final class ScrollScript {
+
+    static final int READ = 0;
+    static final int FLING = 1;
+    static final int FLING_BACK = 2;
+    static final int IDLE = 3;
+    static final int REFRESH = 4;
+
+    private final Random random;
+    private final double flingVelocity;
+    private final double refreshRate;
+
+    private int segment = IDLE;
+    private int ticksLeft;
+    private double velocity;
+
+    /**
+     * @param flingVelocity Initial velocity of fling, items per tick.
+     * @param refreshRate Probability that the next segment is refresh.
+     */
+    ScrollScript(long seed, double flingVelocity, double refreshRate) {
+        this.random = new Random(seed);
+        this.flingVelocity = flingVelocity;
+        this.refreshRate = refreshRate;
+    }
+
+    /**
+     * @return Segment the user is in after this tick, see {@link #delta()} for movement.
+     */
+    int next() {
+        if (ticksLeft-- > 0) {
+            if (segment == FLING || segment == FLING_BACK) {
+                // Fling slows down like RecyclerView fling
+                velocity *= 0.97;
+            }
+            return segment;
+        }
+
+        double roll = random.nextDouble();
+        if (roll < refreshRate) {
+            segment = REFRESH;
+            ticksLeft = 0;
+            velocity = 0;
+        } else if (roll < 0.45) {
+            segment = READ;
+            ticksLeft = 30 + random.nextInt(300);
+            velocity = 0.02 + random.nextDouble() * 0.2;
+        } else if (roll < 0.8) {
+            segment = FLING;
+            ticksLeft = 20 + random.nextInt(100);
+            velocity = flingVelocity * (0.5 + random.nextDouble());
+        } else if (roll < 0.9) {
+            segment = FLING_BACK;
+            ticksLeft = 10 + random.nextInt(60);
+            velocity = -flingVelocity * (0.5 + random.nextDouble());
+        } else {
+            segment = IDLE;
+            ticksLeft = 10 + random.nextInt(200);
+            velocity = 0;
+        }
+        return segment;
+    }
+
+    /**
+     * @return Scroll delta of the current tick in items.
+     */
+    double delta() {
+        return velocity;
+    }
+}
@@ -0,0 +1,67 @@
+package com.ilichev.vladimir.paginationadapter;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Seeded data source for {@link PagingSimulator}. Item of the dataset is its own offset, so any
+ * duplicate or gap in adapter data is visible. Latency is log-normal around median with rare long tail,
+ * requests fail with given rate and pages are cut short with given rate.
+ */
+final class SimulatedSource {
+
+    private final Random random;
+    private final int totalItems;
+    private final long medianLatency;
+    private final double latencySpread;
+    private final double tailRate;
+    private final double failureRate;
+    private final double shortPageRate;
+
+    SimulatedSource(long seed, int totalItems, long medianLatency, double latencySpread, double tailRate,
+                    double failureRate, double shortPageRate) {
+        this.random = new Random(seed);
+        this.totalItems = totalItems;
+        this.medianLatency = medianLatency;
+        this.latencySpread = latencySpread;
+        this.tailRate = tailRate;
+        this.failureRate = failureRate;
+        this.shortPageRate = shortPageRate;
+    }
+
+    int getTotalItems() {
+        return totalItems;
+    }
+
+    /**
+     * @return Virtual time the response takes.
+     */
+    long nextLatency() {
+        double latency = medianLatency * Math.exp(latencySpread * random.nextGaussian());
+        if (random.nextDouble() < tailRate) {
+            latency *= 10;
+        }
+        return Math.max(1, Math.round(latency));
+    }
+
+    boolean nextFailure() {
+        return random.nextDouble() < failureRate;
+    }
+
+    /**
+     * @return Items of the page, shorter than count at the end of dataset or when page is cut short.
+     */
+    List<Long> load(int offset, int count) {
+        int end = Math.min(totalItems, offset + count);
+        if (end - offset > 1 && random.nextDouble() < shortPageRate) {
+            end = offset + 1 + random.nextInt(end - offset - 1);
+        }
+
+        List<Long> items = new ArrayList<>(Math.max(0, end - offset));
+        for (long i = offset; i < end; i++) {
+            items.add(i);
+        }
+        return items;
+    }
+}
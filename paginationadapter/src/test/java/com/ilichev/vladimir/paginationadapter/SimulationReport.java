@@ -0,0 +1,102 @@
+package com.ilichev.vladimir.paginationadapter;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Result of {@link PagingSimulator} run: invariant violations with the first messages for reproduction,
+ * and throughput and latency numbers.
+ */
+final class SimulationReport {
+
+    private static final int MAX_MESSAGES = 20;
+    // Latency histogram with 10 ms buckets
+    private static final int BUCKET_MILLIS = 10;
+    private static final int BUCKETS = 10000;
+
+    private final long seed;
+    private final Map<String, Integer> violations = new TreeMap<>();
+    private final List<String> messages = new ArrayList<>();
+    private final long[] latencyBuckets = new long[BUCKETS];
+
+    long events;
+    long ticks;
+    long pages;
+    long failures;
+    long retries;
+    long resets;
+    long notifications;
+    long stallMillis;
+    long firstPageMillis;
+    long firstPages;
+    long wallNanos;
+
+    SimulationReport(long seed) {
+        this.seed = seed;
+    }
+
+    void violation(String kind, long tick, String message) {
+        Integer count = violations.get(kind);
+        violations.put(kind, count == null ? 1 : count + 1);
+        if (messages.size() < MAX_MESSAGES) {
+            messages.add("tick " + tick + ": " + kind + ": " + message);
+        }
+    }
+
+    void latency(long millis) {
+        latencyBuckets[(int) Math.min(BUCKETS - 1, millis / BUCKET_MILLIS)]++;
+    }
+
+    int violationCount() {
+        int count = 0;
+        for (int value : violations.values()) {
+            count += value;
+        }
+        return count;
+    }
+
+    Map<String, Integer> getViolations() {
+        return violations;
+    }
+
+    /**
+     * @return Latency of given percentile in millis, rounded up to 10 ms.
+     */
+    long latencyPercentile(double percentile) {
+        long total = 0;
+        for (long count : latencyBuckets) {
+            total += count;
+        }
+        long rank = (long) Math.ceil(total * percentile);
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += latencyBuckets[i];
+            if (seen >= rank && seen > 0) {
+                return (i + 1L) * BUCKET_MILLIS;
+            }
+        }
+        return 0;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        sb.append("seed ").append(seed).append('\n');
+        sb.append("events ").append(events).append(", ticks ").append(ticks)
+                .append(", ").append(wallNanos == 0 ? 0 : events * 1000000000L / wallNanos).append(" events/s\n");
+        sb.append("pages ").append(pages).append(", failures ").append(failures)
+                .append(", retries ").append(retries).append(", resets ").append(resets)
+                .append(", notifications ").append(notifications).append('\n');
+        sb.append("latency p50 ").append(latencyPercentile(0.5)).append(" ms, p99 ")
+                .append(latencyPercentile(0.99)).append(" ms, first page avg ")
+                .append(firstPages == 0 ? 0 : firstPageMillis / firstPages).append(" ms, footer stall ")
+                .append(stallMillis).append(" ms\n");
+        sb.append("violations ").append(violationCount()).append(' ').append(violations).append('\n');
+        for (String message : messages) {
+            sb.append("  ").append(message).append('\n');
+        }
+        return sb.toString();
+    }
+}
@@ -0,0 +1,67 @@
+package com.ilichev.vladimir.paginationadapter;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static com.ilichev.vladimir.paginationadapter.PagingFixtures.page;
+import static org.junit.Assert.assertEquals;
+
+public class SubmitListTest {
+
+    private static final int PAGE_SIZE = 10;
+
+    private final List<Long> data = new ArrayList<>();
+    private final List<Integer> requested = new ArrayList<>();
+    private PaginationAdapter<Long> adapter;
+
+    @Before
+    public void setUp() {
+        adapter = new PaginationAdapter<Long>(data, new PagingConfig.Builder().setPageSize(PAGE_SIZE).build()) {
+        };
+        adapter.setUpdateTarget(PagingFixtures.NO_UPDATES);
+        adapter.setExecutors(Runnable::run, Runnable::run);
+        adapter.setLoadNextPartCallback((distance, pageSize) -> requested.add(distance));
+    }
+
+    @Test
+    public void submittedList_reissuesAppendInFlight() {
+        adapter.setData(page(0, PAGE_SIZE));
+        scrollToEnd();
+        assertEquals(Arrays.asList(10), requested);
+
+        adapter.submitList(page(0, 15));
+        assertEquals(Arrays.asList(10, 15), requested);
+
+        // Page of the old list arrives late
+        adapter.setData(10, page(10, PAGE_SIZE));
+        assertEquals(15, data.size());
+
+        adapter.setData(15, page(15, PAGE_SIZE));
+        assertEquals(page(0, 25), data);
+    }
+
+    @Test
+    public void submittedPageOfOtherSize_reissuesAppendInFlight() {
+        adapter.setData(page(0, PAGE_SIZE));
+        adapter.setData(page(10, PAGE_SIZE));
+        scrollToEnd();
+        assertEquals(Arrays.asList(20), requested);
+
+        // One item of the first page was removed on server
+        adapter.submitPage(1, page(0, PAGE_SIZE - 1));
+        assertEquals(Arrays.asList(20, 19), requested);
+
+        adapter.setData(19, page(20, PAGE_SIZE));
+        assertEquals(29, data.size());
+        assertEquals(20L, (long) data.get(19));
+    }
+
+    private void scrollToEnd() {
+        int count = adapter.getItemCount();
+        adapter.onVisibleRangeChanged(Math.max(0, count - 2), count - 1, 1, count, true);
+    }
+}
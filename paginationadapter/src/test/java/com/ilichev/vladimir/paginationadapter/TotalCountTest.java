@@ -0,0 +1,84 @@
+package com.ilichev.vladimir.paginationadapter;
+
+import com.ilichev.vladimir.paginationadapter.core.SparseItemList;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static com.ilichev.vladimir.paginationadapter.PagingFixtures.page;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+public class TotalCountTest {
+
+    private static final int PAGE_SIZE = 20;
+
+    private final SparseItemList<Long> data = new SparseItemList<>();
+    private final List<Integer> requested = new ArrayList<>();
+    private PaginationAdapter<Long> adapter;
+
+    @Before
+    public void setUp() {
+        adapter = new PaginationAdapter<Long>(data, new PagingConfig.Builder().setPageSize(PAGE_SIZE).build()) {
+        };
+        adapter.setUpdateTarget(PagingFixtures.NO_UPDATES);
+        adapter.setLoadNextPartCallback((distance, pageSize) -> requested.add(distance));
+    }
+
+    @Test
+    public void listIsPaddedWithPlaceholders() {
+        adapter.setData(page(0, PAGE_SIZE));
+        adapter.setTotalCount(100000);
+
+        assertEquals(100000, adapter.getItemCount());
+        assertEquals(PageState.REACHED_LIMIT, adapter.getFooterState());
+        assertNull(data.get(PAGE_SIZE));
+    }
+
+    @Test
+    public void jumpRequestsOnlyTargetPage() {
+        adapter.setData(page(0, PAGE_SIZE));
+        adapter.setTotalCount(100000);
+
+        adapter.onVisibleRangeChanged(50000, 50005, 1, adapter.getItemCount(), true);
+        assertEquals(1, requested.size());
+        assertEquals(50000, (int) requested.get(0));
+
+        adapter.setData(50000, page(50000, PAGE_SIZE));
+        assertEquals(50000L, (long) data.get(50000));
+        assertNull(data.get(49999));
+        assertNull(data.get(50020));
+
+        // Then page before visible one
+        adapter.onVisibleRangeChanged(50000, 50005, 1, adapter.getItemCount(), true);
+        assertEquals(49980, (int) requested.get(1));
+    }
+
+    @Test
+    public void incompleteLastPageIsRequestedAgain() {
+        adapter.setData(page(0, PAGE_SIZE));
+        adapter.setTotalCount(30);
+        adapter.onVisibleRangeChanged(0, 25, 1, adapter.getItemCount(), true);
+
+        assertEquals(20, (int) requested.get(0));
+        adapter.setData(20, page(20, 10));
+        assertEquals(29L, (long) data.get(29));
+    }
+
+    @Test
+    public void resetLeavesTotalCountMode() {
+        adapter.setTotalCount(1000);
+        adapter.reset();
+        adapter.loadFirstPage();
+
+        assertEquals(0, data.size());
+        // The first page is requested again
+        assertEquals(PageState.LOADING, adapter.getFooterState());
+        adapter.setData(page(0, PAGE_SIZE));
+        assertEquals(PAGE_SIZE, data.size());
+    }
+
+}
@@ -0,0 +1,46 @@
+package com.ilichev.vladimir.paginationadapter;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static com.ilichev.vladimir.paginationadapter.PagingFixtures.page;
+import static org.junit.Assert.assertEquals;
+
+public class UpdateTest {
+
+    private static final int PAGE_SIZE = 10;
+
+    private final List<Long> data = new ArrayList<>();
+    private PaginationAdapter<Long> adapter;
+
+    @Before
+    public void setUp() {
+        adapter = new PaginationAdapter<Long>(data, new PagingConfig.Builder().setPageSize(PAGE_SIZE).build()) {
+        };
+        adapter.setUpdateTarget(PagingFixtures.NO_UPDATES);
+        adapter.setLoadNextPartCallback((distance, pageSize) -> {
+        });
+        adapter.loadFirstPage();
+        adapter.setData(page(0, PAGE_SIZE));
+    }
+
+    @Test
+    public void lastPosition_isUpdated() {
+        adapter.update(100L, PAGE_SIZE - 1);
+        assertEquals(100L, (long) data.get(PAGE_SIZE - 1));
+        assertEquals(PAGE_SIZE, data.size());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void positionOfListSize_isRejected() {
+        adapter.update(100L, PAGE_SIZE);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void negativePosition_isRejected() {
+        adapter.update(100L, -1);
+    }
+}
@@ -0,0 +1,161 @@
+package com.ilichev.vladimir.paginationadapter.benchmark;
+
+import com.ilichev.vladimir.paginationadapter.ItemKeyProvider;
+import com.ilichev.vladimir.paginationadapter.PageState;
+import com.ilichev.vladimir.paginationadapter.core.PagingEngine;
+import com.ilichev.vladimir.paginationadapter.core.PositionIndex;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throughput of the paging hot paths on lists of different size: adding a page, local insertion
+ * and removal, and the check that runs on every scroll event. Every benchmark leaves the list
+ * with the same size, so results of one iteration are measured at the configured size.
+ * Run with {@code -prof gc} (enabled in build.gradle) to see allocation rate.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class PagingEngineBenchmark {
+
+    private static final int PAGE_SIZE = 20;
+    private static final ItemKeyProvider<Item> KEY_PROVIDER = item -> item.id;
+
+    @Param({"10000", "100000", "1000000"})
+    public int size;
+
+    // Items are found by ItemKeyProvider keys or by equals
+    @Param({"true", "false"})
+    public boolean stableKeys;
+
+    private List<Item> data;
+    private List<Item> page;
+    private PositionIndex<Item> index;
+    private PagingEngine engine;
+    private Item inserted;
+    private long nextId;
+    private int cursor;
+
+    @Setup(Level.Iteration)
+    public void setUp() {
+        data = new ArrayList<>(size + PAGE_SIZE);
+        for (int i = 0; i < size; i++) {
+            data.add(new Item(i));
+        }
+        nextId = size;
+
+        page = new ArrayList<>(PAGE_SIZE);
+        for (int i = 0; i < PAGE_SIZE; i++) {
+            page.add(new Item(nextId++));
+        }
+        inserted = new Item(nextId++);
+
+        engine = new PagingEngine(PAGE_SIZE, Integer.MAX_VALUE);
+        engine.setItemCount(size);
+        engine.updateFooter(false, PageState.LOADING);
+
+        index = new PositionIndex<>();
+        if (stableKeys) {
+            index.setKeyProvider(KEY_PROVIDER);
+        }
+        // Builds the index
+        index.positionOf(data.get(0), data);
+    }
+
+    /**
+     * Page arrives with setData, then it is dropped as in windowed mode.
+     */
+    @Benchmark
+    public int appendAndDropPage() {
+        data.addAll(page);
+        for (int i = 0; i < page.size(); i++) {
+            index.append(page.get(i));
+        }
+        engine.onPageAdded();
+        boolean limitReached = engine.isLimitReached(data.size(), page.size());
+        int footerChange = engine.updateFooter(limitReached, PageState.LOADING);
+
+        for (int i = data.size() - 1; i >= size; i--) {
+            index.remove(i, data.get(i));
+            data.remove(i);
+        }
+        engine.onPageDropped();
+        return footerChange;
+    }
+
+    /**
+     * Item is inserted into the list and found with the index, then removed from the same position,
+     * the same as insert() and remove(E) of the adapter.
+     */
+    @Benchmark
+    public int insert() {
+        cursor = (cursor + 7919) % size;
+        data.add(cursor, inserted);
+        index.insert(cursor, inserted);
+        engine.shift(1);
+
+        int position = index.positionOf(inserted, data);
+        index.remove(position, inserted);
+        data.remove(position);
+        engine.shift(-1);
+        return position;
+    }
+
+    /**
+     * Item is found with the index and removed, then the same item is inserted back to its position.
+     */
+    @Benchmark
+    public int remove() {
+        cursor = (cursor + 7919) % size;
+        Item item = data.get(cursor);
+        int position = index.positionOf(item, data);
+        index.remove(position, item);
+        data.remove(position);
+        engine.shift(-1);
+
+        data.add(position, item);
+        index.insert(position, item);
+        engine.shift(1);
+        return position;
+    }
+
+    /**
+     * Check that runs on every scroll event.
+     */
+    @Benchmark
+    public boolean scrollCheck() {
+        cursor = (cursor + 1) % size;
+        return engine.shouldLoad(data.size() + 1, cursor, 2, 1);
+    }
+
+    static final class Item {
+
+        final long id;
+
+        Item(long id) {
+            this.id = id;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof Item && ((Item) o).id == id;
+        }
+
+        @Override
+        public int hashCode() {
+            return (int) (id ^ (id >>> 32));
+        }
+    }
+}
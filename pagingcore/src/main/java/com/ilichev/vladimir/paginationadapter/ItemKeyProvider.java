@@ -0,0 +1,19 @@
+package com.ilichev.vladimir.paginationadapter;
+
+import android.support.annotation.NonNull;
+
+/**
+ * Provides stable key for item. With key provider {@code PaginationAdapter} has stable ids,
+ * so {@code RecyclerView} reuses bound holders across changes.
+ * Keys from {@code Long.MIN_VALUE} to {@code Long.MIN_VALUE + Integer.MAX_VALUE} are reserved for
+ * footer and placeholders.
+ * @param <E> Item class.
+ */
+public interface ItemKeyProvider<E> {
+
+    /**
+     * @param item Item from the list.
+     * @return Key that is unique in the list and does not change when item content changes.
+     */
+    long getKey(@NonNull E item);
+}
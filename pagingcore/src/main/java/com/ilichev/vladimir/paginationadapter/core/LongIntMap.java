@@ -0,0 +1,117 @@
+package com.ilichev.vladimir.paginationadapter.core;
+
+import java.util.Arrays;
+
+/**
+ * Open addressing hash map from long keys to non-negative int values.
+ * Keys and values are kept in primitive arrays, so lookups do not box.
+ */
+public final class LongIntMap {
+
+    public static final int NO_VALUE = -1;
+
+    // Marks slot of removed entry, probing continues past it
+    private static final int REMOVED = -2;
+    private static final float LOAD_FACTOR = 0.5f;
+
+    private long[] keys;
+    private int[] values;
+    private int size;
+    // Entries and removed markers, both make probing longer
+    private int used;
+
+    public LongIntMap() {
+        allocate(16);
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @return Value for the key or {@link #NO_VALUE} if there is no such key.
+     */
+    public int get(long key) {
+        int mask = keys.length - 1;
+        for (int i = hash(key) & mask; values[i] != NO_VALUE; i = (i + 1) & mask) {
+            if (values[i] != REMOVED && keys[i] == key) {
+                return values[i];
+            }
+        }
+        return NO_VALUE;
+    }
+
+    /**
+     * @param value Value to put, must not be negative.
+     */
+    public void put(long key, int value) {
+        if (value < 0) {
+            throw new IllegalArgumentException("Value must not be negative");
+        }
+        if (used + 1 > keys.length * LOAD_FACTOR) {
+            rehash(size + 1 > keys.length * LOAD_FACTOR / 2 ? keys.length * 2 : keys.length);
+        }
+
+        int mask = keys.length - 1;
+        int free = -1;
+        int i = hash(key) & mask;
+        for (; values[i] != NO_VALUE; i = (i + 1) & mask) {
+            if (values[i] == REMOVED) {
+                if (free == -1) {
+                    free = i;
+                }
+            } else if (keys[i] == key) {
+                values[i] = value;
+                return;
+            }
+        }
+        if (free == -1) {
+            free = i;
+            used++;
+        }
+        keys[free] = key;
+        values[free] = value;
+        size++;
+    }
+
+    public void remove(long key) {
+        int mask = keys.length - 1;
+        for (int i = hash(key) & mask; values[i] != NO_VALUE; i = (i + 1) & mask) {
+            if (values[i] != REMOVED && keys[i] == key) {
+                values[i] = REMOVED;
+                size--;
+                return;
+            }
+        }
+    }
+
+    public void clear() {
+        Arrays.fill(values, NO_VALUE);
+        size = 0;
+        used = 0;
+    }
+
+    private void rehash(int capacity) {
+        long[] oldKeys = keys;
+        int[] oldValues = values;
+        allocate(capacity);
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldValues[i] >= 0) {
+                put(oldKeys[i], oldValues[i]);
+            }
+        }
+    }
+
+    private void allocate(int capacity) {
+        keys = new long[capacity];
+        values = new int[capacity];
+        Arrays.fill(values, NO_VALUE);
+        size = 0;
+        used = 0;
+    }
+
+    private static int hash(long key) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32));
+    }
+}
@@ -0,0 +1,187 @@
+package com.ilichev.vladimir.paginationadapter.core;
+
+import com.ilichev.vladimir.paginationadapter.PageState;
+
+/**
+ * Platform free part of paging: position of the next page, limit detection, footer state
+ * transitions and load threshold check. It does not know about items or views, adapter tells it
+ * what happened with the list and applies returned changes of the footer.
+ * Distance is the offset of the last added page, so the next page starts at {@link #getNextDistance()}.
+ */
+public final class PagingEngine {
+
+    public static final int FOOTER_UNCHANGED = 0;
+    public static final int FOOTER_INSERTED = 1;
+    public static final int FOOTER_REMOVED = 2;
+    public static final int FOOTER_CHANGED = 3;
+
+    private final int pageSize;
+    private final int dataLimit;
+
+    private int distance;
+    private int currentPage;
+    private PageState footerState = PageState.LOADED;
+
+    /**
+     * @param pageSize Number of items in a full page, must be positive.
+     * @param dataLimit Number of items to stop loading at.
+     * @throws IllegalArgumentException If (pageSize < 1)
+     */
+    public PagingEngine(int pageSize, int dataLimit) {
+        if (pageSize < 1) {
+            throw new IllegalArgumentException("Page size must be positive");
+        }
+        this.pageSize = pageSize;
+        this.dataLimit = dataLimit;
+        reset();
+    }
+
+    public int getPageSize() {
+        return pageSize;
+    }
+
+    public int getDataLimit() {
+        return dataLimit;
+    }
+
+    public int getDistance() {
+        return distance;
+    }
+
+    public int getNextDistance() {
+        return distance + pageSize;
+    }
+
+    public int getCurrentPage() {
+        return currentPage;
+    }
+
+    public PageState getFooterState() {
+        return footerState;
+    }
+
+    public boolean hasFooter() {
+        return hasFooter(footerState);
+    }
+
+    public static boolean hasFooter(PageState state) {
+        return state == PageState.LOADING || state == PageState.ERROR;
+    }
+
+    /**
+     * Returns to the state before the first page, footer is hidden.
+     */
+    public void reset() {
+        distance = 0 - pageSize;
+        footerState = PageState.LOADED;
+        calculateCurrentPage();
+    }
+
+    /**
+     * Brings back position of the last added page and footer state of a saved list.
+     */
+    public void restore(int distance, PageState footerState) {
+        this.distance = distance;
+        this.footerState = footerState;
+        calculateCurrentPage();
+    }
+
+    public void onPageAdded() {
+        distance += pageSize;
+        calculateCurrentPage();
+    }
+
+    public void onPageDropped() {
+        distance -= pageSize;
+        calculateCurrentPage();
+    }
+
+    /**
+     * Moves next page borders, for example after local insertion (+1) or removal (-1) of an item
+     * or when loaded page turned out to have another size.
+     */
+    public void shift(int count) {
+        distance += count;
+        calculateCurrentPage();
+    }
+
+    /**
+     * Makes the next page start right after the given number of items.
+     */
+    public void setItemCount(int itemCount) {
+        distance = itemCount - pageSize;
+        calculateCurrentPage();
+    }
+
+    /**
+     * @param itemCount Number of items after the page was added.
+     * @param lastPageSize Size of the added page.
+     * @return True if there is nothing more to load.
+     */
+    public boolean isLimitReached(int itemCount, int lastPageSize) {
+        return itemCount >= dataLimit || lastPageSize < pageSize;
+    }
+
+    /**
+     * Limit check for pages that tell whether there are more of them, short page is not the last one then.
+     * @param itemCount Number of items after the page was added.
+     * @param hasMore True if server has more pages.
+     * @return True if there is nothing more to load.
+     */
+    public boolean isLimitReached(int itemCount, boolean hasMore) {
+        return itemCount >= dataLimit || !hasMore;
+    }
+
+    /**
+     * @return True if page at given distance is within data limit.
+     */
+    public boolean isWithinLimit(int pageDistance) {
+        return pageDistance < dataLimit;
+    }
+
+    /**
+     * Footer displays state of the next page to add. Limit once reached stays until reset.
+     * @param limitReached True if the last added page reached the limit.
+     * @param nextPageState State of the next page request or null if it is not requested.
+     * @return How footer changed, one of {@link #FOOTER_UNCHANGED}, {@link #FOOTER_INSERTED},
+     * {@link #FOOTER_REMOVED} and {@link #FOOTER_CHANGED}.
+     */
+    public int updateFooter(boolean limitReached, PageState nextPageState) {
+        PageState prev = footerState;
+        if (limitReached || prev == PageState.REACHED_LIMIT) {
+            footerState = PageState.REACHED_LIMIT;
+        } else {
+            footerState = nextPageState == null ? PageState.LOADED : nextPageState;
+        }
+
+        boolean hadFooter = hasFooter(prev);
+        boolean hasFooter = hasFooter(footerState);
+        if (hadFooter && hasFooter) {
+            return prev != footerState ? FOOTER_CHANGED : FOOTER_UNCHANGED;
+        } else if (hadFooter) {
+            return FOOTER_REMOVED;
+        } else if (hasFooter) {
+            return FOOTER_INSERTED;
+        }
+        return FOOTER_UNCHANGED;
+    }
+
+    /**
+     * Tells whether scroll should load the next page.
+     * @param itemCount Number of items in RecyclerView, footer included.
+     * @param lastVisiblePosition Last visible adapter position.
+     * @param threshold Number of items from the end to start loading at.
+     * @param freeRequests Number of requests that can be issued now.
+     * @return True if the next page should be requested.
+     */
+    public boolean shouldLoad(int itemCount, int lastVisiblePosition, int threshold, int freeRequests) {
+        if (footerState == PageState.REACHED_LIMIT || footerState == PageState.ERROR || freeRequests <= 0) {
+            return false;
+        }
+        return itemCount <= lastVisiblePosition + threshold;
+    }
+
+    private void calculateCurrentPage() {
+        currentPage = distance / pageSize + 1;
+    }
+}
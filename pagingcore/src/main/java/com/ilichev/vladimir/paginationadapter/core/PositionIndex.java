@@ -0,0 +1,396 @@
+package com.ilichev.vladimir.paginationadapter.core;
+
+import com.ilichev.vladimir.paginationadapter.ItemKeyProvider;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Index from item to its position in the list.
+ * Every indexed item gets a slot, slots keep the order of items. Removed items free their slots
+ * and Fenwick tree over alive slots turns slot into position, so removal does not shift anything:
+ * lookup is a hash lookup plus O(log n) rank. Placeholders (nulls) occupy slots but are not indexed.
+ * Insertion into the middle takes free slot between neighbours or moves slots up to the nearest free one,
+ * slots are compacted with gaps when free slots are too far or too many.
+ * Index is built lazily, changes it can not follow (diff application) invalidate it until the next lookup.
+ * Items are identified with {@link Object#equals(Object)}, or with keys of {@link ItemKeyProvider}
+ * kept in primitive map when provider is set. Equal items may repeat, lookup finds the first one.
+ */
+public final class PositionIndex<E> {
+
+    // Longest run of slots moved by insertion, longer runs are compacted
+    private static final int MAX_MOVE = 64;
+
+    // First slot of every item
+    private final Map<E, Integer> slots = new HashMap<>();
+    private final LongIntMap keySlots = new LongIntMap();
+    // Other slots of repeated items by item, or by key as index into keyRepeatLists, so keys are not boxed
+    private final Map<E, SlotList> repeats = new HashMap<>();
+    private final LongIntMap keyRepeats = new LongIntMap();
+    private final List<SlotList> keyRepeatLists = new ArrayList<>();
+    private ItemKeyProvider<E> keyProvider;
+    private final BitSet alive = new BitSet();
+    // Item of every slot, null for free slots and placeholders
+    private Object[] slotItems = new Object[1];
+    // Fenwick tree over alive slots, 1-based
+    private int[] tree = new int[1];
+    private int slotCount;
+    private int aliveCount;
+    private boolean valid;
+
+    public boolean isValid() {
+        return valid;
+    }
+
+    public void invalidate() {
+        valid = false;
+    }
+
+    public void setKeyProvider(ItemKeyProvider<E> keyProvider) {
+        this.keyProvider = keyProvider;
+        invalidate();
+    }
+
+    /**
+     * @return Position of the first equal item or -1 if there is no such item.
+     */
+    public int positionOf(E item, List<E> items) {
+        if (!valid) {
+            rebuild(items);
+        }
+        int slot = slotOf(item);
+        return slot == LongIntMap.NO_VALUE ? -1 : rank(slot) - 1;
+    }
+
+    /**
+     * Indexes item added to the end of the list.
+     */
+    public void append(E item) {
+        if (!valid) {
+            return;
+        }
+        if (slotCount + 1 >= tree.length) {
+            resize(Math.max(16, tree.length * 2));
+        }
+        occupy(slotCount, item);
+        slotCount++;
+    }
+
+    /**
+     * Indexes item inserted to the given position.
+     */
+    public void insert(int position, E item) {
+        if (!valid) {
+            return;
+        }
+        if (position == aliveCount) {
+            append(item);
+            return;
+        }
+
+        int next = slotAt(position);
+        int previous = position == 0 ? -1 : slotAt(position - 1);
+        if (next - previous > 1) {
+            // Free slot between neighbours
+            occupy(next - 1, item);
+            return;
+        }
+
+        int free = alive.nextClearBit(next);
+        if (free - next > MAX_MOVE) {
+            compact();
+            insert(position, item);
+            return;
+        }
+        if (free >= slotCount) {
+            if (free + 1 >= tree.length) {
+                resize(tree.length * 2);
+            }
+            slotCount = free + 1;
+        }
+        for (int slot = free - 1; slot >= next; slot--) {
+            move(slot, slot + 1);
+        }
+        // Slot next is alive again, so only free slot changes the tree
+        alive.set(free);
+        add(free, 1);
+        aliveCount++;
+        slotItems[next] = item;
+        putSlot(item, next);
+    }
+
+    /**
+     * Forgets item removed from the given position.
+     */
+    public void remove(int position, E item) {
+        if (!valid) {
+            return;
+        }
+        int slot = slotAt(position);
+        removeSlot(item, slot);
+        slotItems[slot] = null;
+        alive.clear(slot);
+        add(slot, -1);
+        aliveCount--;
+        if (slotCount > 16 && slotCount > aliveCount * 4) {
+            compact();
+        }
+    }
+
+    /**
+     * Replaces item on the given position, for example when placeholder is replaced with item.
+     */
+    public void replace(int position, E oldItem, E newItem) {
+        if (!valid) {
+            return;
+        }
+        int slot = slotAt(position);
+        removeSlot(oldItem, slot);
+        slotItems[slot] = newItem;
+        putSlot(newItem, slot);
+    }
+
+    private void occupy(int slot, E item) {
+        alive.set(slot);
+        add(slot, 1);
+        aliveCount++;
+        slotItems[slot] = item;
+        putSlot(item, slot);
+    }
+
+    @SuppressWarnings("unchecked")
+    private void move(int from, int to) {
+        E item = (E) slotItems[from];
+        slotItems[to] = item;
+        slotItems[from] = null;
+        if (item == null) {
+            return;
+        }
+        // Moved slots keep their order, so the first slot stays the first one
+        if (slotOf(item) == from) {
+            setFirstSlot(item, to);
+        } else {
+            repeatsOf(item).replace(from, to);
+        }
+    }
+
+    private SlotList repeatsOf(E item) {
+        if (keyProvider != null) {
+            int index = keyRepeats.get(keyProvider.getKey(item));
+            return index == LongIntMap.NO_VALUE ? null : keyRepeatLists.get(index);
+        }
+        return repeats.isEmpty() ? null : repeats.get(item);
+    }
+
+    private SlotList addRepeats(E item) {
+        SlotList list = new SlotList();
+        if (keyProvider != null) {
+            list.key = keyProvider.getKey(item);
+            keyRepeats.put(list.key, keyRepeatLists.size());
+            keyRepeatLists.add(list);
+        } else {
+            repeats.put(item, list);
+        }
+        return list;
+    }
+
+    private void removeRepeats(E item, SlotList list) {
+        if (keyProvider == null) {
+            repeats.remove(item);
+            return;
+        }
+        // The last list takes place of removed one, so indexes stay dense
+        int index = keyRepeats.get(list.key);
+        keyRepeats.remove(list.key);
+        SlotList last = keyRepeatLists.remove(keyRepeatLists.size() - 1);
+        if (last != list) {
+            keyRepeatLists.set(index, last);
+            keyRepeats.put(last.key, index);
+        }
+    }
+
+    private int slotOf(E item) {
+        if (keyProvider != null) {
+            return keySlots.get(keyProvider.getKey(item));
+        }
+        Integer slot = slots.get(item);
+        return slot == null ? LongIntMap.NO_VALUE : slot;
+    }
+
+    private void setFirstSlot(E item, int slot) {
+        if (keyProvider != null) {
+            keySlots.put(keyProvider.getKey(item), slot);
+        } else {
+            slots.put(item, slot);
+        }
+    }
+
+    private void putSlot(E item, int slot) {
+        if (item == null) {
+            return;
+        }
+        int first = slotOf(item);
+        if (first == LongIntMap.NO_VALUE) {
+            setFirstSlot(item, slot);
+            return;
+        }
+
+        SlotList list = repeatsOf(item);
+        if (list == null) {
+            list = addRepeats(item);
+        }
+        if (slot < first) {
+            list.add(first);
+            setFirstSlot(item, slot);
+        } else {
+            list.add(slot);
+        }
+    }
+
+    private void removeSlot(E item, int slot) {
+        if (item == null) {
+            return;
+        }
+        SlotList list = repeatsOf(item);
+        if (slotOf(item) == slot) {
+            if (list == null) {
+                if (keyProvider != null) {
+                    keySlots.remove(keyProvider.getKey(item));
+                } else {
+                    slots.remove(item);
+                }
+                return;
+            }
+            setFirstSlot(item, list.removeFirst());
+        } else if (list != null) {
+            list.remove(slot);
+        } else {
+            return;
+        }
+        if (list.size == 0) {
+            removeRepeats(item, list);
+        }
+    }
+
+    private void rebuild(List<E> items) {
+        clear(Math.max(16, items.size() + 1));
+        valid = true;
+        for (int i = 0; i < items.size(); i++) {
+            append(items.get(i));
+        }
+    }
+
+    /**
+     * Drops free slots and leaves one free slot after every item, so insertions do not move slots.
+     */
+    @SuppressWarnings("unchecked")
+    private void compact() {
+        Object[] items = new Object[aliveCount];
+        int count = 0;
+        for (int slot = alive.nextSetBit(0); slot >= 0; slot = alive.nextSetBit(slot + 1)) {
+            items[count++] = slotItems[slot];
+        }
+
+        clear(Math.max(16, Integer.highestOneBit(count * 2 + 1) * 2));
+        for (int i = 0; i < count; i++) {
+            occupy(i * 2, (E) items[i]);
+        }
+        slotCount = count * 2;
+    }
+
+    private void clear(int size) {
+        slots.clear();
+        keySlots.clear();
+        repeats.clear();
+        keyRepeats.clear();
+        keyRepeatLists.clear();
+        alive.clear();
+        slotCount = 0;
+        aliveCount = 0;
+        tree = new int[size];
+        slotItems = new Object[size];
+    }
+
+    private void resize(int size) {
+        tree = new int[size];
+        slotItems = Arrays.copyOf(slotItems, size);
+        for (int slot = alive.nextSetBit(0); slot >= 0; slot = alive.nextSetBit(slot + 1)) {
+            add(slot, 1);
+        }
+    }
+
+    private void add(int slot, int delta) {
+        for (int i = slot + 1; i < tree.length; i += i & -i) {
+            tree[i] += delta;
+        }
+    }
+
+    /**
+     * @return Number of alive slots up to and including given one.
+     */
+    private int rank(int slot) {
+        int sum = 0;
+        for (int i = slot + 1; i > 0; i -= i & -i) {
+            sum += tree[i];
+        }
+        return sum;
+    }
+
+    /**
+     * @return Slot of the item at given position.
+     */
+    private int slotAt(int position) {
+        int index = 0;
+        int remaining = position + 1;
+        for (int step = Integer.highestOneBit(tree.length - 1); step > 0; step >>= 1) {
+            int next = index + step;
+            if (next < tree.length && tree[next] < remaining) {
+                index = next;
+                remaining -= tree[next];
+            }
+        }
+        return index;
+    }
+
+    /**
+     * Sorted slots of repeated item except the first one.
+     */
+    private static final class SlotList {
+
+        private int[] slots = new int[2];
+        private int size;
+        // Key of repeated item when items are identified by keys
+        long key;
+
+        void add(int slot) {
+            int index = -Arrays.binarySearch(slots, 0, size, slot) - 1;
+            if (size == slots.length) {
+                slots = Arrays.copyOf(slots, size * 2);
+            }
+            System.arraycopy(slots, index, slots, index + 1, size - index);
+            slots[index] = slot;
+            size++;
+        }
+
+        int removeFirst() {
+            int slot = slots[0];
+            System.arraycopy(slots, 1, slots, 0, --size);
+            return slot;
+        }
+
+        void remove(int slot) {
+            int index = Arrays.binarySearch(slots, 0, size, slot);
+            if (index >= 0) {
+                System.arraycopy(slots, index + 1, slots, index, --size - index);
+            }
+        }
+
+        void replace(int from, int to) {
+            slots[Arrays.binarySearch(slots, 0, size, from)] = to;
+        }
+    }
+}
@@ -0,0 +1,133 @@
+package com.ilichev.vladimir.paginationadapter.core;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.RandomAccess;
+
+/**
+ * List for {@code PaginationAdapter} with known total count of items, see {@code PaginationAdapter#setTotalCount(int)}.
+ * Most positions of a big result set are placeholders (nulls) of pages that are not loaded, so items are kept
+ * in fixed size chunks that are allocated only when they get a non-null item and released when they become empty.
+ * Placeholders cost nothing but a slot in chunk table, one per {@value #CHUNK_SIZE} positions.
+ * @param <E> Item class.
+ */
+public final class SparseItemList<E> extends AbstractList<E> implements RandomAccess {
+
+    static final int CHUNK_SIZE = 256;
+    private static final int CHUNK_SHIFT = 8;
+    private static final int CHUNK_MASK = CHUNK_SIZE - 1;
+
+    private Object[][] chunks = new Object[0][];
+    // Number of non-null items in every chunk
+    private int[] counts = new int[0];
+    private int size;
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public E get(int index) {
+        checkIndex(index, size);
+        Object[] chunk = chunks[index >> CHUNK_SHIFT];
+        return chunk == null ? null : (E) chunk[index & CHUNK_MASK];
+    }
+
+    @Override
+    public E set(int index, E element) {
+        checkIndex(index, size);
+        E prev = get(index);
+        store(index, element);
+        return prev;
+    }
+
+    @Override
+    public void add(int index, E element) {
+        checkIndex(index, size + 1);
+        ensureCapacity(size + 1);
+        size++;
+        modCount++;
+        if (index == size - 1) {
+            store(index, element);
+            return;
+        }
+        for (int i = size - 1; i > index; i--) {
+            store(i, get(i - 1));
+        }
+        store(index, element);
+    }
+
+    @Override
+    public E remove(int index) {
+        checkIndex(index, size);
+        E prev = get(index);
+        for (int i = index; i < size - 1; i++) {
+            store(i, get(i + 1));
+        }
+        store(size - 1, null);
+        size--;
+        modCount++;
+        return prev;
+    }
+
+    @Override
+    public void clear() {
+        chunks = new Object[0][];
+        counts = new int[0];
+        size = 0;
+        modCount++;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @return Number of allocated chunks, for tests and memory estimates.
+     */
+    int allocatedChunks() {
+        int count = 0;
+        for (Object[] chunk : chunks) {
+            if (chunk != null) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    private void store(int index, Object element) {
+        int c = index >> CHUNK_SHIFT;
+        Object[] chunk = chunks[c];
+        if (chunk == null) {
+            if (element == null) {
+                return;
+            }
+            chunk = new Object[CHUNK_SIZE];
+            chunks[c] = chunk;
+        }
+
+        int i = index & CHUNK_MASK;
+        if (chunk[i] == null && element != null) {
+            counts[c]++;
+        } else if (chunk[i] != null && element == null) {
+            counts[c]--;
+        }
+        chunk[i] = element;
+        if (counts[c] == 0) {
+            chunks[c] = null;
+        }
+    }
+
+    private void ensureCapacity(int capacity) {
+        int needed = (capacity + CHUNK_SIZE - 1) >> CHUNK_SHIFT;
+        if (needed > chunks.length) {
+            int length = Math.max(needed, chunks.length + (chunks.length >> 1));
+            chunks = Arrays.copyOf(chunks, length);
+            counts = Arrays.copyOf(counts, length);
+        }
+    }
+
+    private void checkIndex(int index, int bound) {
+        if (index < 0 || index >= bound) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", size: " + size);
+        }
+    }
+}
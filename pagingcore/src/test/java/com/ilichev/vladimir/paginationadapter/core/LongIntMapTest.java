@@ -0,0 +1,53 @@
+package com.ilichev.vladimir.paginationadapter.core;
+
+import org.junit.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+
+public class LongIntMapTest {
+
+    @Test
+    public void putGetRemove() {
+        LongIntMap map = new LongIntMap();
+        map.put(Long.MIN_VALUE, 1);
+        map.put(0, 2);
+        map.put(Long.MAX_VALUE, 3);
+
+        assertEquals(1, map.get(Long.MIN_VALUE));
+        assertEquals(2, map.get(0));
+        assertEquals(3, map.get(Long.MAX_VALUE));
+
+        map.remove(0);
+        assertEquals(LongIntMap.NO_VALUE, map.get(0));
+        assertEquals(2, map.size());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void negativeValue_throws() {
+        new LongIntMap().put(1, -1);
+    }
+
+    @Test
+    public void randomChanges_matchHashMap() {
+        Random random = new Random(7);
+        LongIntMap map = new LongIntMap();
+        Map<Long, Integer> expected = new HashMap<>();
+        for (int step = 0; step < 20000; step++) {
+            long key = random.nextInt(500);
+            if (random.nextBoolean()) {
+                map.put(key, step);
+                expected.put(key, step);
+            } else {
+                map.remove(key);
+                expected.remove(key);
+            }
+            Integer value = expected.get(key);
+            assertEquals(value == null ? LongIntMap.NO_VALUE : value, map.get(key));
+        }
+        assertEquals(expected.size(), map.size());
+    }
+}
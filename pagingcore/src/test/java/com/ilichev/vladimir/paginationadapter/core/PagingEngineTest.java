@@ -0,0 +1,114 @@
+package com.ilichev.vladimir.paginationadapter.core;
+
+import com.ilichev.vladimir.paginationadapter.PageState;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class PagingEngineTest {
+
+    private PagingEngine engine;
+
+    @Before
+    public void setUp() {
+        engine = new PagingEngine(20, 100);
+    }
+
+    @Test
+    public void initialState_waitsForFirstPage() {
+        assertEquals(0, engine.getNextDistance());
+        assertEquals(0, engine.getCurrentPage());
+        assertEquals(PageState.LOADED, engine.getFooterState());
+        assertFalse(engine.hasFooter());
+    }
+
+    @Test
+    public void addedPages_moveNextDistance() {
+        engine.onPageAdded();
+        engine.onPageAdded();
+
+        assertEquals(40, engine.getNextDistance());
+        assertEquals(2, engine.getCurrentPage());
+    }
+
+    @Test
+    public void shift_followsLocalChanges() {
+        engine.onPageAdded();
+        engine.shift(1);
+        engine.shift(1);
+        engine.shift(-1);
+
+        assertEquals(21, engine.getNextDistance());
+    }
+
+    @Test
+    public void setItemCount_nextPageStartsAfterItems() {
+        engine.setItemCount(57);
+
+        assertEquals(57, engine.getNextDistance());
+    }
+
+    @Test
+    public void limit_reachedByDataLimitOrShortPage() {
+        assertFalse(engine.isLimitReached(40, 20));
+        assertTrue(engine.isLimitReached(100, 20));
+        assertTrue(engine.isLimitReached(45, 5));
+        assertTrue(engine.isWithinLimit(80));
+        assertFalse(engine.isWithinLimit(100));
+    }
+
+    @Test
+    public void limit_reachedByDataLimitOrNoMorePages() {
+        assertFalse(engine.isLimitReached(45, true));
+        assertTrue(engine.isLimitReached(40, false));
+        assertTrue(engine.isLimitReached(100, true));
+    }
+
+    @Test
+    public void footer_transitions() {
+        assertEquals(PagingEngine.FOOTER_INSERTED, engine.updateFooter(false, PageState.LOADING));
+        assertEquals(PagingEngine.FOOTER_UNCHANGED, engine.updateFooter(false, PageState.LOADING));
+        assertEquals(PagingEngine.FOOTER_CHANGED, engine.updateFooter(false, PageState.ERROR));
+        assertEquals(PagingEngine.FOOTER_REMOVED, engine.updateFooter(false, null));
+        assertEquals(PageState.LOADED, engine.getFooterState());
+    }
+
+    @Test
+    public void reachedLimit_staysUntilReset() {
+        engine.updateFooter(false, PageState.LOADING);
+
+        assertEquals(PagingEngine.FOOTER_REMOVED, engine.updateFooter(true, null));
+        assertEquals(PagingEngine.FOOTER_UNCHANGED, engine.updateFooter(false, PageState.LOADING));
+        assertEquals(PageState.REACHED_LIMIT, engine.getFooterState());
+
+        engine.reset();
+        assertEquals(PageState.LOADED, engine.getFooterState());
+        assertEquals(0, engine.getNextDistance());
+    }
+
+    @Test
+    public void shouldLoad_withinThreshold() {
+        assertTrue(engine.shouldLoad(40, 38, 2, 1));
+        assertFalse(engine.shouldLoad(40, 30, 2, 1));
+    }
+
+    @Test
+    public void shouldLoad_notWhenBusyFailedOrFinished() {
+        assertFalse(engine.shouldLoad(40, 39, 2, 0));
+
+        engine.updateFooter(false, PageState.ERROR);
+        assertFalse(engine.shouldLoad(40, 39, 2, 1));
+
+        engine.updateFooter(true, null);
+        assertFalse(engine.shouldLoad(40, 39, 2, 1));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void zeroPageSize_throws() {
+        new PagingEngine(0, 100);
+    }
+}
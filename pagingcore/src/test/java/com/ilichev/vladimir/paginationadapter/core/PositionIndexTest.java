@@ -0,0 +1,132 @@
+package com.ilichev.vladimir.paginationadapter.core;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class PositionIndexTest {
+
+    @Test
+    public void positionOf_findsItems() {
+        List<String> items = list("a", "b", "c");
+        PositionIndex<String> index = new PositionIndex<>();
+
+        assertEquals(1, index.positionOf("b", items));
+        assertEquals(-1, index.positionOf("d", items));
+    }
+
+    @Test
+    public void removal_shiftsPositionsOfLaterItems() {
+        List<String> items = list("a", "b", "c", "d");
+        PositionIndex<String> index = new PositionIndex<>();
+        index.positionOf("a", items);
+
+        index.remove(1, items.remove(1));
+
+        assertEquals(-1, index.positionOf("b", items));
+        assertEquals(1, index.positionOf("c", items));
+        assertEquals(2, index.positionOf("d", items));
+    }
+
+    @Test
+    public void placeholders_replacedWithItems() {
+        List<String> items = list("a", null, "c");
+        PositionIndex<String> index = new PositionIndex<>();
+        index.positionOf("a", items);
+
+        items.set(1, "b");
+        index.replace(1, null, "b");
+
+        assertEquals(1, index.positionOf("b", items));
+    }
+
+    @Test
+    public void repeatedItems_foundInOrder() {
+        List<String> items = list("a", "b", "a", "c");
+        PositionIndex<String> index = new PositionIndex<>();
+        index.positionOf("a", items);
+
+        index.remove(0, items.remove(0));
+        assertEquals(items.indexOf("a"), index.positionOf("a", items));
+
+        index.remove(1, items.remove(1));
+        assertEquals(-1, index.positionOf("a", items));
+    }
+
+    @Test
+    public void insertion_keepsIndexValid() {
+        List<String> items = list("a", "c");
+        PositionIndex<String> index = new PositionIndex<>();
+        index.positionOf("a", items);
+
+        items.add(1, "b");
+        index.insert(1, "b");
+        items.add(0, "c");
+        index.insert(0, "c");
+
+        assertTrue(index.isValid());
+        assertEquals(2, index.positionOf("b", items));
+        assertEquals(0, index.positionOf("c", items));
+    }
+
+    @Test
+    public void keyProvider_findsItemsByKey() {
+        List<String> items = list("apple", "banana", "cherry");
+        PositionIndex<String> index = new PositionIndex<>();
+        index.setKeyProvider(item -> item.charAt(0));
+
+        assertEquals(2, index.positionOf("cranberry", items));
+    }
+
+    @Test
+    public void randomChanges_matchList() {
+        checkRandomChanges(new PositionIndex<>());
+    }
+
+    @Test
+    public void randomChangesWithKeys_matchList() {
+        PositionIndex<Integer> index = new PositionIndex<>();
+        index.setKeyProvider(item -> item);
+        checkRandomChanges(index);
+    }
+
+    private static void checkRandomChanges(PositionIndex<Integer> index) {
+        Random random = new Random(42);
+        List<Integer> items = new ArrayList<>();
+        int next = 0;
+        for (int step = 0; step < 20000; step++) {
+            int op = random.nextInt(5);
+            if (op == 0 || items.isEmpty()) {
+                items.add(next);
+                index.append(next++);
+            } else if (op == 1) {
+                // Repeats items sometimes
+                int item = random.nextInt(4) == 0 ? items.get(random.nextInt(items.size())) : next++;
+                int position = random.nextInt(items.size() + 1);
+                items.add(position, item);
+                index.insert(position, item);
+            } else if (op == 2) {
+                int position = random.nextInt(items.size());
+                index.remove(position, items.remove(position));
+            } else {
+                int position = random.nextInt(items.size());
+                Integer item = items.get(position);
+                assertEquals(items.indexOf(item), index.positionOf(item, items));
+            }
+        }
+        assertTrue(index.isValid());
+    }
+
+    private static List<String> list(String... items) {
+        List<String> list = new ArrayList<>();
+        for (String item : items) {
+            list.add(item);
+        }
+        return list;
+    }
+}
@@ -0,0 +1,68 @@
+package com.ilichev.vladimir.paginationadapter.core;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+public class SparseItemListTest {
+
+    @Test
+    public void placeholdersDoNotAllocateChunks() {
+        SparseItemList<String> list = new SparseItemList<>();
+        list.addAll(Collections.<String>nCopies(1000000, null));
+
+        assertEquals(1000000, list.size());
+        assertNull(list.get(999999));
+        assertEquals(0, list.allocatedChunks());
+
+        list.set(500000, "a");
+        assertEquals("a", list.get(500000));
+        assertEquals(1, list.allocatedChunks());
+
+        list.set(500000, null);
+        assertEquals(0, list.allocatedChunks());
+    }
+
+    @Test
+    public void behavesLikeArrayList() {
+        Random random = new Random(3);
+        SparseItemList<Integer> list = new SparseItemList<>();
+        List<Integer> expected = new ArrayList<>();
+        for (int i = 0; i < 5000; i++) {
+            int op = random.nextInt(4);
+            Integer value = random.nextInt(3) == 0 ? null : i;
+            if (op == 0 || expected.isEmpty()) {
+                int index = random.nextInt(expected.size() + 1);
+                list.add(index, value);
+                expected.add(index, value);
+            } else if (op == 1) {
+                list.add(value);
+                expected.add(value);
+            } else if (op == 2) {
+                int index = random.nextInt(expected.size());
+                assertEquals(expected.remove(index), list.remove(index));
+            } else {
+                int index = random.nextInt(expected.size());
+                assertEquals(expected.set(index, value), list.set(index, value));
+            }
+        }
+        assertEquals(expected, list);
+
+        list.clear();
+        assertEquals(0, list.size());
+        assertEquals(0, list.allocatedChunks());
+    }
+
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void getOutOfBounds() {
+        SparseItemList<String> list = new SparseItemList<>();
+        list.add(null);
+        list.get(1);
+    }
+}